@@ -4,6 +4,10 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 import lombok.Data;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @Configuration
 @ConfigurationProperties(prefix = "document")
 @Data
@@ -26,4 +30,134 @@ public class DocumentConfig {
      * 最大文件大小（字节）
      */
     private long maxFileSize = 10 * 1024 * 1024; // 10MB
+    
+    /**
+     * 分片上传允许的最大文件大小（字节）
+     */
+    private long maxUploadSize = 2L * 1024 * 1024 * 1024; // 2GB
+    
+    /**
+     * 默认分片大小（字节），客户端指定的分片大小限制在最小值和最大值之间
+     */
+    private int uploadChunkSize = 8 * 1024 * 1024;
+    
+    private int minUploadChunkSize = 256 * 1024;
+    
+    private int maxUploadChunkSize = 64 * 1024 * 1024;
+    
+    /**
+     * 上传会话有效期，过期未完成的会话被清理
+     */
+    private Duration uploadSessionTtl = Duration.ofHours(24);
+    
+    /**
+     * 引用计数归零的内容保留多久后回收
+     */
+    private Duration blobGcGracePeriod = Duration.ofMinutes(10);
+    
+    /**
+     * 每次回收的最大内容数
+     */
+    private int blobGcBatchSize = 100;
+    
+    /**
+     * 存储后端配置
+     */
+    private Storage storage = new Storage();
+    
+    /**
+     * 缩略图和预览图配置
+     */
+    private Preview preview = new Preview();
+    
+    @Data
+    public static class Storage {
+        
+        /**
+         * 存储类型：local（本地磁盘）、s3（S3兼容对象存储）、tiered（本地热缓存+对象存储）
+         */
+        private String type = "local";
+        
+        private S3 s3 = new S3();
+        
+        /**
+         * 分层存储时本地缓存的容量（字节），超出后淘汰最久未访问的文件
+         */
+        private long hotCapacity = 10L * 1024 * 1024 * 1024; // 10GB
+        
+        /**
+         * 启动时将历史文档和本地内容迁移到当前存储后端
+         */
+        private boolean migrate = false;
+        
+        /**
+         * 迁移时每批处理的记录数
+         */
+        private int migrateBatchSize = 100;
+    }
+    
+    @Data
+    public static class S3 {
+        
+        /**
+         * 服务地址，如 https://s3.us-east-1.amazonaws.com 或 http://minio:9000
+         */
+        private String endpoint;
+        
+        private String region = "us-east-1";
+        
+        private String bucket;
+        
+        private String accessKey;
+        
+        private String secretKey;
+        
+        /**
+         * 对象键前缀
+         */
+        private String prefix = "";
+        
+        /**
+         * 使用路径风格地址（MinIO等需要开启）
+         */
+        private boolean pathStyle = true;
+        
+        private Duration timeout = Duration.ofSeconds(10);
+    }
+    
+    @Data
+    public static class Preview {
+        
+        /**
+         * 是否在上传后生成预览图
+         */
+        private boolean enabled = true;
+        
+        /**
+         * 预览图尺寸名称到长边像素数的映射
+         */
+        private Map<String, Integer> sizes = new LinkedHashMap<>(Map.of("small", 160, "large", 640));
+        
+        /**
+         * JPEG压缩质量（0-1）
+         */
+        private float quality = 0.8f;
+        
+        /**
+         * 允许生成预览的源图最大像素数，防止解压炸弹；PDF按此限制首页的渲染像素数
+         */
+        private long maxSourcePixels = 100_000_000L;
+        
+        /**
+         * 生成线程数和等待队列长度，队列满时丢弃任务，预览图在首次请求时补生成
+         */
+        private int threads = 2;
+        
+        private int queueCapacity = 500;
+        
+        /**
+         * 生成失败的内容在该时间内不再重试
+         */
+        private Duration failureRetryInterval = Duration.ofHours(1);
+    }
 }
\ No newline at end of file
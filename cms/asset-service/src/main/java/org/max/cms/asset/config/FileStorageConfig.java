@@ -2,13 +2,23 @@ package org.max.cms.asset.config;
 
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.max.cms.asset.storage.BlobStore;
+import org.max.cms.asset.storage.LocalBlobStore;
+import org.max.cms.asset.storage.S3BlobStore;
+import org.max.cms.asset.storage.TieredBlobStore;
+import org.max.cms.common.util.AuditContextTaskDecorator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.StringUtils;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @Slf4j
@@ -17,6 +27,9 @@ public class FileStorageConfig {
     @Autowired
     private DocumentConfig documentConfig;
 
+    @Autowired
+    private AuditContextTaskDecorator auditContextTaskDecorator;
+
     @PostConstruct
     public void init() {
         try {
@@ -31,4 +44,50 @@ public class FileStorageConfig {
             log.error("Failed to create file storage directory", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 按document.storage.type创建存储后端
+     * 分层存储的本地缓存放在存储目录的cache子目录下，与本地存储模式的文件分开
+     */
+    @Bean
+    public BlobStore blobStore() {
+        DocumentConfig.Storage storage = documentConfig.getStorage();
+        Path storageRoot = Paths.get(documentConfig.getStoragePath());
+        BlobStore blobStore = switch (storage.getType()) {
+            case "local" -> new LocalBlobStore(storageRoot);
+            case "s3" -> s3BlobStore(storage.getS3());
+            case "tiered" -> new TieredBlobStore(new LocalBlobStore(storageRoot.resolve("cache")),
+                    s3BlobStore(storage.getS3()), storage.getHotCapacity());
+            default -> throw new IllegalStateException("Unknown document storage type: " + storage.getType());
+        };
+        log.info("Document storage backend: {}", storage.getType());
+        return blobStore;
+    }
+
+    private S3BlobStore s3BlobStore(DocumentConfig.S3 s3) {
+        if (!StringUtils.hasText(s3.getEndpoint()) || !StringUtils.hasText(s3.getBucket())) {
+            throw new IllegalStateException("document.storage.s3.endpoint and bucket are required");
+        }
+        return new S3BlobStore(s3.getEndpoint(), s3.getRegion(), s3.getBucket(), s3.getAccessKey(),
+                s3.getSecretKey(), s3.getPrefix(), s3.isPathStyle(), s3.getTimeout());
+    }
+
+    /**
+     * 预览图生成线程池
+     * 线程数和队列有界，队列满时拒绝任务（由调用方放弃本次生成），缺失的预览图在首次请求时重新排队生成
+     */
+    @Bean("previewTaskExecutor")
+    public Executor previewTaskExecutor() {
+        DocumentConfig.Preview preview = documentConfig.getPreview();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(preview.getThreads());
+        executor.setMaxPoolSize(preview.getThreads());
+        executor.setQueueCapacity(preview.getQueueCapacity());
+        executor.setThreadNamePrefix("preview-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.setTaskDecorator(auditContextTaskDecorator);
+        executor.initialize();
+        return executor;
+    }
+}
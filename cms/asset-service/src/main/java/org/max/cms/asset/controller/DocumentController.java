@@ -1,32 +1,80 @@
 package org.max.cms.asset.controller;
 
 // 移除swagger注解导入，使用简单注释
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.max.cms.asset.entity.Document;
 import org.max.cms.asset.entity.Folder;
+import org.max.cms.asset.service.DocumentPreviewService;
+import org.max.cms.asset.service.DocumentPreviewService.Preview;
 import org.max.cms.asset.service.DocumentService;
+import org.max.cms.asset.service.DocumentService.DocumentContent;
+import org.max.cms.asset.service.DocumentUploadService;
+import org.max.cms.asset.service.DocumentUploadService.CreateUploadRequest;
+import org.max.cms.asset.service.DocumentUploadService.UploadStatus;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.UnsupportedEncodingException;
-import java.net.URLEncoder;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 @RestController
 @RequestMapping("/api/documents")
 @Slf4j
 public class DocumentController {
 
+    /**
+     * Tomcat sendfile请求属性：连接器支持时由内核直接把文件写入socket
+     */
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * 多区间请求合并为单个区间时允许的额外字节数
+     */
+    private static final long RANGE_COALESCE_GAP = 8 * 1024;
+
+    /**
+     * 分片SHA-256请求头
+     */
+    private static final String CHUNK_CHECKSUM_HEADER = "X-Chunk-Sha256";
+
+    /**
+     * 预览图缓存策略：内容不变，缓存一年
+     */
+    private static final CacheControl PREVIEW_CACHE_CONTROL = CacheControl.maxAge(Duration.ofDays(365))
+            .cachePrivate().immutable();
+
     @Autowired
     private DocumentService documentService;
 
+    @Autowired
+    private DocumentUploadService documentUploadService;
+
+    @Autowired
+    private DocumentPreviewService documentPreviewService;
+
     // 文件夹管理接口
     @PostMapping("/folders")
     // 创建文件夹
@@ -109,6 +157,80 @@ public class DocumentController {
         }
     }
 
+    // 分片上传接口
+    @PostMapping("/uploads")
+    // 创建分片上传会话
+    public ResponseEntity<UploadStatus> createUploadSession(@RequestBody CreateUploadRequest request) {
+        try {
+            return ResponseEntity.ok(documentUploadService.createSession(request));
+        } catch (Exception e) {
+            return uploadError("创建上传会话失败", e);
+        }
+    }
+
+    @GetMapping("/uploads/{uploadId}")
+    // 查询上传会话和已接收的分片，用于断点续传
+    public ResponseEntity<UploadStatus> getUploadSession(@PathVariable String uploadId) {
+        try {
+            return ResponseEntity.ok(documentUploadService.getSession(uploadId));
+        } catch (Exception e) {
+            return uploadError("查询上传会话失败", e);
+        }
+    }
+
+    @PutMapping("/uploads/{uploadId}/chunks/{chunkIndex}")
+    // 上传分片：请求体为分片原始字节，X-Chunk-Sha256为分片的SHA-256
+    public ResponseEntity<Void> uploadChunk(@PathVariable String uploadId, @PathVariable int chunkIndex,
+                                            @RequestHeader(CHUNK_CHECKSUM_HEADER) String checksum,
+                                            HttpServletRequest request) {
+        try {
+            documentUploadService.writeChunk(uploadId, chunkIndex, checksum, request.getInputStream());
+            return ResponseEntity.noContent().build();
+        } catch (Exception e) {
+            return uploadError("上传分片失败", e);
+        }
+    }
+
+    @PostMapping("/uploads/{uploadId}/complete")
+    // 合并分片为文档
+    public ResponseEntity<Document> completeUpload(@PathVariable String uploadId) {
+        try {
+            return ResponseEntity.ok(documentUploadService.complete(uploadId));
+        } catch (Exception e) {
+            return uploadError("合并上传失败", e);
+        }
+    }
+
+    @DeleteMapping("/uploads/{uploadId}")
+    // 放弃上传
+    public ResponseEntity<Void> abortUpload(@PathVariable String uploadId) {
+        try {
+            documentUploadService.abort(uploadId);
+            return ResponseEntity.noContent().build();
+        } catch (Exception e) {
+            return uploadError("放弃上传失败", e);
+        }
+    }
+
+    /**
+     * 会话不存在返回404，状态冲突返回409，I/O错误返回500，其他错误返回400
+     */
+    private static <T> ResponseEntity<T> uploadError(String message, Exception e) {
+        if (e instanceof NoSuchElementException) {
+            return ResponseEntity.notFound().build();
+        }
+        if (e instanceof IllegalStateException) {
+            log.warn("{}: {}", message, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        if (e instanceof IOException) {
+            log.error(message, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+        log.warn("{}: {}", message, e.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+    }
+
     @PutMapping("/{id}")
     // 更新文档信息
     public ResponseEntity<Document> updateDocument(@PathVariable Long id, @RequestBody Document document) {
@@ -175,27 +297,184 @@ public class DocumentController {
     }
 
     @GetMapping("/download/{id}")
-    // 下载文档
-    public ResponseEntity<byte[]> downloadDocument(@PathVariable Long id) {
+    // 下载文档：流式输出，支持Range/If-Range断点续传和ETag/Last-Modified协商缓存
+    public void downloadDocument(@PathVariable Long id, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        DocumentContent content;
         try {
-            Document document = documentService.getDocumentById(id);
-            if (document == null) {
-                return ResponseEntity.notFound().build();
+            content = documentService.getDocumentContent(id);
+        } catch (Exception e) {
+            log.error("下载文档失败", e);
+            response.sendError(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            return;
+        }
+        if (content == null) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+
+        // 同时写入ETag和Last-Modified，客户端缓存仍有效时返回304
+        String etag = content.etag();
+        if (new ServletWebRequest(request, response).checkNotModified(etag, content.lastModified())) {
+            return;
+        }
+
+        long length = content.length();
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && length > 0 && ifRangeMatches(request, etag, content.lastModified())) {
+            long[] span = resolveRange(range, length);
+            if (span == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
             }
+            start = span[0];
+            end = span[1];
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
 
-            byte[] fileContent = documentService.downloadDocument(id);
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment", 
-                URLEncoder.encode(document.getOriginalName(), StandardCharsets.UTF_8));
-            
-            return ResponseEntity.ok()
-                .headers(headers)
-                .body(fileContent);
+        Document document = content.document();
+        long count = end - start + 1;
+        response.setContentType(document.getMimeType() != null
+                ? document.getMimeType() : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(document.getOriginalName(), StandardCharsets.UTF_8).build().toString());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setContentLengthLong(count);
+        if (count <= 0 || "HEAD".equals(request.getMethod())) {
+            return;
+        }
+        writeFile(content, start, count, request, response);
+    }
+
+    /**
+     * 输出文件区间：连接器支持sendfile时交给Tomcat零拷贝发送，否则通过FileChannel.transferTo分段写出，
+     * 两种方式都不在堆上缓存整个文件；内容不在本地磁盘时从存储后端按区间流式读取
+     */
+    private void writeFile(DocumentContent content, long start, long count,
+                           HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (content.localPath() == null) {
+            try (InputStream input = documentService.openDocumentContent(content, start, count)) {
+                input.transferTo(response.getOutputStream());
+            }
+            return;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, content.localPath().toRealPath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(content.localPath(), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+    }
+
+    @GetMapping("/{id}/preview")
+    // 获取文档缩略图，预览图由内容决定不会变化，允许客户端长期缓存
+    public void getPreview(@PathVariable Long id, @RequestParam(defaultValue = "small") String size,
+                           HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Preview preview;
+        try {
+            Document document = documentService.getDocumentById(id);
+            preview = document != null ? documentPreviewService.getPreview(document, size) : null;
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpStatus.BAD_REQUEST.value());
+            return;
         } catch (Exception e) {
-            log.error("下载文档失败", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            log.error("获取缩略图失败", e);
+            response.sendError(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            return;
+        }
+        if (preview == null) {
+            // 不支持预览，或仍在生成中
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, PREVIEW_CACHE_CONTROL.getHeaderValue());
+        if (new ServletWebRequest(request, response).checkNotModified(preview.etag())) {
+            return;
+        }
+        response.setContentType(Preview.MEDIA_TYPE);
+        response.setContentLengthLong(preview.length());
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+        try (InputStream input = documentPreviewService.openPreview(preview)) {
+            input.transferTo(response.getOutputStream());
+        }
+    }
+
+    /**
+     * 解析Range请求头，返回要输出的区间[start, end]，没有可满足的区间时返回null
+     * 起点超出文件长度的区间被忽略；多个区间之间的空隙不超过RANGE_COALESCE_GAP时合并为一个区间输出，
+     * 否则只输出第一个区间，避免少量字节的多区间请求被放大为整个文件
+     */
+    private static long[] resolveRange(String rangeHeader, long length) {
+        List<HttpRange> ranges;
+        try {
+            ranges = HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        long[] first = null;
+        long start = Long.MAX_VALUE;
+        long end = -1;
+        long requested = 0;
+        for (HttpRange httpRange : ranges) {
+            long rangeStart;
+            long rangeEnd;
+            try {
+                rangeStart = httpRange.getRangeStart(length);
+                rangeEnd = httpRange.getRangeEnd(length);
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            if (rangeStart >= length || rangeStart > rangeEnd) {
+                continue;
+            }
+            if (first == null) {
+                first = new long[] {rangeStart, rangeEnd};
+            }
+            start = Math.min(start, rangeStart);
+            end = Math.max(end, rangeEnd);
+            requested += rangeEnd - rangeStart + 1;
+        }
+        if (first == null) {
+            return null;
+        }
+        return end - start + 1 - requested <= RANGE_COALESCE_GAP ? new long[] {start, end} : first;
+    }
+
+    /**
+     * If-Range与当前ETag或修改时间一致时才按Range返回部分内容，否则返回完整文件
+     */
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
         }
     }
 
@@ -1,5 +1,7 @@
 package org.max.cms.asset.entity;
 
+import com.baomidou.mybatisplus.annotation.FieldStrategy;
+import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableName;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -17,8 +19,20 @@ public class Document extends BaseEntity {
     private Long folderId;
     private String name;
     private String originalName;
+    
+    /**
+     * 存储位置、大小和内容哈希与内容引用计数绑定，只在上传和迁移时写入，不随updateById更新
+     */
+    @TableField(updateStrategy = FieldStrategy.NEVER)
     private String filePath;
+    @TableField(updateStrategy = FieldStrategy.NEVER)
     private Long fileSize;
     private String mimeType;
     private String description;
+    
+    /**
+     * 内容的SHA-256，为空表示去重前上传的历史文档
+     */
+    @TableField(updateStrategy = FieldStrategy.NEVER)
+    private String contentHash;
 }
\ No newline at end of file
@@ -0,0 +1,38 @@
+package org.max.cms.asset.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 文档内容实体
+ * 以内容的SHA-256为主键，多个文档引用同一内容时只保存一份文件
+ */
+@Data
+@TableName("document_blobs")
+public class DocumentBlob {
+
+    @TableId(type = IdType.INPUT)
+    private String contentHash;
+
+    private Long fileSize;
+
+    private String storagePath;
+
+    /**
+     * 引用该内容的文档数
+     */
+    private Integer refCount;
+
+    /**
+     * 引用计数归零的时间，超过宽限期后回收
+     */
+    private LocalDateTime orphanedAt;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+}
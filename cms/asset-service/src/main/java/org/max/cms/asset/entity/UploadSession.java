@@ -0,0 +1,60 @@
+package org.max.cms.asset.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 分片上传会话实体
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@TableName("document_upload_sessions")
+public class UploadSession {
+
+    public static final String STATUS_ACTIVE = "ACTIVE";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+
+    @TableId(type = IdType.INPUT)
+    private String id;
+
+    private Long folderId;
+    private String originalName;
+    private String mimeType;
+    private String description;
+    private Long fileSize;
+    private Integer chunkSize;
+    private Integer totalChunks;
+
+    /**
+     * 客户端声明的整体SHA-256，合并时校验
+     */
+    private String contentHash;
+
+    private String status;
+    private LocalDateTime expiresAt;
+    private LocalDateTime createdAt;
+    private String createdBy;
+
+    /**
+     * 分片在文件中的起始偏移
+     */
+    public long chunkOffset(int chunkIndex) {
+        return (long) chunkIndex * chunkSize;
+    }
+
+    /**
+     * 分片长度，最后一个分片可能不足chunkSize
+     */
+    public int chunkLength(int chunkIndex) {
+        return (int) Math.min(chunkSize, fileSize - chunkOffset(chunkIndex));
+    }
+}
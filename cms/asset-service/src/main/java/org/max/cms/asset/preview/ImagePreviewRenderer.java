@@ -0,0 +1,63 @@
+package org.max.cms.asset.preview;
+
+import lombok.extern.slf4j.Slf4j;
+import org.max.cms.asset.config.DocumentConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * 图片渲染器，基于ImageIO
+ * 先读取图片头获得尺寸，超过像素上限的图片直接拒绝；解码时按所需尺寸设置子采样，
+ * 大图不会以原始分辨率整幅解码到内存中。
+ */
+@Component
+@Slf4j
+public class ImagePreviewRenderer implements PreviewRenderer {
+
+    @Autowired
+    private DocumentConfig documentConfig;
+
+    @Override
+    public boolean supports(String mimeType) {
+        return mimeType != null && mimeType.startsWith("image/")
+                && ImageIO.getImageReadersByMIMEType(mimeType).hasNext();
+    }
+
+    @Override
+    public BufferedImage render(Path source, int maxDimension) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            if (input == null) {
+                throw new IOException("Cannot open image: " + source);
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IOException("Unsupported image format: " + source);
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > documentConfig.getPreview().getMaxSourcePixels()) {
+                    throw new IOException("Image too large for preview: " + width + "x" + height);
+                }
+                // 解码结果长边保留为所需尺寸的两倍以上，缩放后仍保持清晰
+                int subsampling = Math.max(1, Math.max(width, height) / (maxDimension * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+}
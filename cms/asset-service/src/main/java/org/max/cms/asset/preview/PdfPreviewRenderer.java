@@ -0,0 +1,62 @@
+package org.max.cms.asset.preview;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.max.cms.asset.config.DocumentConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * PDF渲染器，基于PDFBox
+ * 只渲染首页，按页面尺寸计算缩放比例，使长边为所需尺寸的两倍，且总像素不超过像素上限；
+ * 文档内容缓存在临时文件而不是堆内存中，内嵌大图允许子采样解码。
+ */
+@Component
+@Slf4j
+public class PdfPreviewRenderer implements PreviewRenderer {
+
+    private static final String PDF_MIME_TYPE = "application/pdf";
+
+    @Autowired
+    private DocumentConfig documentConfig;
+
+    @Override
+    public boolean supports(String mimeType) {
+        // 客户端上报的类型可能带参数或大小写不同
+        return mimeType != null && mimeType.regionMatches(true, 0, PDF_MIME_TYPE, 0, PDF_MIME_TYPE.length());
+    }
+
+    @Override
+    public BufferedImage render(Path source, int maxDimension) throws IOException {
+        try (PDDocument document = Loader.loadPDF(source.toFile(), null, null, null,
+                IOUtils.createTempFileOnlyStreamCache())) {
+            if (document.getNumberOfPages() == 0) {
+                throw new IOException("PDF has no pages: " + source);
+            }
+            PDRectangle box = document.getPage(0).getCropBox();
+            float width = box.getWidth();
+            float height = box.getHeight();
+            if (width <= 0 || height <= 0) {
+                throw new IOException("Invalid PDF page size: " + width + "x" + height);
+            }
+            // 长边为所需尺寸的两倍，缩放后仍保持清晰；页面过大时按像素上限降低比例
+            float scale = maxDimension * 2f / Math.max(width, height);
+            long maxPixels = documentConfig.getPreview().getMaxSourcePixels();
+            if ((double) width * height * scale * scale > maxPixels) {
+                scale = (float) Math.sqrt(maxPixels / ((double) width * height));
+            }
+            PDFRenderer renderer = new PDFRenderer(document);
+            renderer.setSubsamplingAllowed(true);
+            return renderer.renderImage(0, scale, ImageType.RGB);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package org.max.cms.asset.preview;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * 预览图渲染器
+ * 将文档内容渲染为图片，由预览服务缩放到各个固定尺寸。新的文档类型通过增加实现Bean接入。
+ */
+public interface PreviewRenderer {
+    
+    /**
+     * 是否支持该类型的文档
+     */
+    boolean supports(String mimeType);
+    
+    /**
+     * 渲染文档（或文档首页），长边不小于maxDimension时可以按比例降低解码分辨率
+     *
+     * @param source 本地文件
+     * @param maxDimension 所需的最大预览尺寸
+     */
+    BufferedImage render(Path source, int maxDimension) throws IOException;
+}
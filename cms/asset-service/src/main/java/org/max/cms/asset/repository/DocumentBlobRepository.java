@@ -0,0 +1,63 @@
+package org.max.cms.asset.repository;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.max.cms.asset.entity.DocumentBlob;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Mapper
+public interface DocumentBlobRepository extends BaseMapper<DocumentBlob> {
+
+    /**
+     * 获取内容的事务级咨询锁，串行化同一内容的写入与回收
+     * @param contentHash 内容哈希
+     */
+    Integer lockContentHash(@Param("contentHash") String contentHash);
+
+    /**
+     * 增加内容引用，内容不存在时插入
+     * @param blob 内容信息
+     * @return 实际使用的存储路径
+     */
+    String acquire(@Param("blob") DocumentBlob blob);
+
+    /**
+     * 减少内容引用，归零时记录时间
+     * @param contentHash 内容哈希
+     * @return 影响行数
+     */
+    int release(@Param("contentHash") String contentHash);
+
+    /**
+     * 查询引用计数归零且超过宽限期的内容
+     * @param orphanedBefore 归零时间上限
+     * @param limit 最大条数
+     * @return 内容哈希列表
+     */
+    List<String> selectCollectable(@Param("orphanedBefore") LocalDateTime orphanedBefore, @Param("limit") int limit);
+
+    /**
+     * 删除仍无引用的内容记录
+     * @param contentHash 内容哈希
+     * @return 被删除内容的存储路径，内容已被重新引用时为null
+     */
+    String deleteUnreferenced(@Param("contentHash") String contentHash);
+
+    /**
+     * 查询给定内容哈希中已有记录的部分，用于回收存储中无记录的文件
+     * @param contentHashes 内容哈希列表
+     * @return 已有记录的内容哈希
+     */
+    List<String> selectExistingHashes(@Param("contentHashes") List<String> contentHashes);
+
+    /**
+     * 按内容哈希键集分页查询内容记录，用于存储迁移
+     * @param afterHash 上一页最后一条的内容哈希，首页为null
+     * @param limit 最大条数
+     * @return 内容记录列表
+     */
+    List<DocumentBlob> selectAfter(@Param("afterHash") String afterHash, @Param("limit") int limit);
+}
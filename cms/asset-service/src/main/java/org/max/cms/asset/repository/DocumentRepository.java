@@ -35,4 +35,23 @@ public interface DocumentRepository extends BaseMapper<Document> {
      * @return 文档列表
      */
     List<Document> selectRootDocuments();
+    
+    /**
+     * 按ID键集分页查询去重前上传的历史文档
+     * @param afterId 上一页最后一条的ID
+     * @param limit 最大条数
+     * @return 文档列表
+     */
+    List<Document> selectLegacyAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+    
+    /**
+     * 将文档指向内容寻址存储中的内容
+     * @param id 文档ID
+     * @param filePath 存储键
+     * @param contentHash 内容哈希
+     * @param fileSize 文件大小
+     * @return 影响行数
+     */
+    int updateContent(@Param("id") Long id, @Param("filePath") String filePath,
+                      @Param("contentHash") String contentHash, @Param("fileSize") long fileSize);
 }
\ No newline at end of file
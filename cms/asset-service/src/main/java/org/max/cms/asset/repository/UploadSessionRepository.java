@@ -0,0 +1,74 @@
+package org.max.cms.asset.repository;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.max.cms.asset.entity.UploadSession;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Mapper
+public interface UploadSessionRepository extends BaseMapper<UploadSession> {
+
+    /**
+     * 记录已接收的分片，重复接收时保留首次记录
+     * @param sessionId 上传ID
+     * @param chunkIndex 分片序号
+     * @param checksum 分片SHA-256
+     * @return 新增行数
+     */
+    int insertChunk(@Param("sessionId") String sessionId, @Param("chunkIndex") int chunkIndex,
+                    @Param("checksum") String checksum);
+
+    /**
+     * 查询已接收分片的校验和
+     * @param sessionId 上传ID
+     * @param chunkIndex 分片序号
+     * @return 校验和，未接收时为null
+     */
+    String selectChunkChecksum(@Param("sessionId") String sessionId, @Param("chunkIndex") int chunkIndex);
+
+    /**
+     * 查询已接收的分片序号
+     * @param sessionId 上传ID
+     * @return 分片序号列表
+     */
+    List<Integer> selectChunkIndexes(@Param("sessionId") String sessionId);
+
+    /**
+     * 统计已接收的分片数
+     * @param sessionId 上传ID
+     * @return 分片数
+     */
+    int countChunks(@Param("sessionId") String sessionId);
+
+    /**
+     * 将活动会话标记为已完成，防止重复合并
+     * @param sessionId 上传ID
+     * @return 影响行数
+     */
+    int markCompleted(@Param("sessionId") String sessionId);
+
+    /**
+     * 删除会话已接收的全部分片记录，整体校验失败后客户端需重新上传
+     * @param sessionId 上传ID
+     * @return 删除行数
+     */
+    int deleteChunks(@Param("sessionId") String sessionId);
+
+    /**
+     * 将已占用的会话恢复为活动状态，合并在写入存储前失败时使用
+     * @param sessionId 上传ID
+     * @return 影响行数
+     */
+    int reopen(@Param("sessionId") String sessionId);
+
+    /**
+     * 查询已过期的会话ID，包括合并中途异常退出而停留在已完成状态的会话
+     * @param now 当前时间
+     * @param limit 最大条数
+     * @return 上传ID列表
+     */
+    List<String> selectExpired(@Param("now") LocalDateTime now, @Param("limit") int limit);
+}
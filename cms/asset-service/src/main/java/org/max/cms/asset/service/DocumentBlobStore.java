@@ -0,0 +1,84 @@
+package org.max.cms.asset.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 文档内容存储
+ * 按内容寻址保存文件，相同内容只保存一份并维护引用计数，文件本身写入配置的存储后端
+ */
+public interface DocumentBlobStore {
+    
+    /**
+     * 将内容写入存储后端，需要在事务外调用
+     * 内容已存在时不再写入；返回的暂存内容尚未被引用，须在事务中调用acquire后才算保存成功
+     */
+    StagedBlob stage(InputStream content) throws IOException;
+    
+    /**
+     * 将已写好的文件写入存储后端，需要在事务外调用
+     * 调用后源文件被移走或由暂存内容接管，关闭暂存内容时删除
+     */
+    default StagedBlob stage(Path file) throws IOException {
+        return stage(file, null);
+    }
+    
+    /**
+     * 校验文件的SHA-256后写入存储后端，需要在事务外调用
+     * 校验不通过时抛出IllegalArgumentException，文件保持原样、不写入存储；否则同stage(Path)
+     *
+     * @param expectedHash 期望的SHA-256十六进制，为null时不校验
+     */
+    StagedBlob stage(Path file, String expectedHash) throws IOException;
+    
+    /**
+     * 为暂存的内容增加一次引用，需要在事务内调用，引用计数与业务记录一同提交
+     * 事务回滚时已写入的内容没有记录，由后台任务按存储清单回收
+     */
+    StoredBlob acquire(StagedBlob staged) throws IOException;
+    
+    /**
+     * 释放一次引用，引用归零的内容由后台任务回收
+     */
+    void release(String contentHash);
+    
+    /**
+     * 回收引用计数归零且超过宽限期的内容
+     * @return 回收的内容数
+     */
+    int collectGarbage();
+    
+    /**
+     * 回收存储中没有内容记录且超过宽限期的文件，即写入存储后事务回滚留下的内容
+     * @return 回收的文件数
+     */
+    int sweepOrphanedObjects();
+    
+    /**
+     * 已写入存储、尚未被引用的内容
+     * 内容此前已存在时保留源文件，加锁引用前内容被并发回收时用于重新写入；关闭时删除
+     *
+     * @param retained 保留的源文件，内容是本次写入的时为null
+     */
+    record StagedBlob(String contentHash, String storageKey, long size, boolean deduplicated, Path retained)
+            implements AutoCloseable {
+        
+        @Override
+        public void close() throws IOException {
+            if (retained != null) {
+                Files.deleteIfExists(retained);
+            }
+        }
+    }
+    
+    /**
+     * 已保存的内容
+     *
+     * @param storageKey 存储后端中的键
+     * @param deduplicated 内容此前已存在，本次未写入文件
+     */
+    record StoredBlob(String contentHash, String storageKey, long size, boolean deduplicated) {
+    }
+}
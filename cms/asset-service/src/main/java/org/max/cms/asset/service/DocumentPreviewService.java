@@ -0,0 +1,53 @@
+package org.max.cms.asset.service;
+
+import org.max.cms.asset.entity.Document;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 文档预览图服务
+ * 上传后在有界线程池中异步生成各固定尺寸的缩略图，按内容哈希保存在内容旁边，内容相同的文档共用预览图
+ */
+public interface DocumentPreviewService {
+    
+    /**
+     * 为新文档安排预览图生成，在当前事务提交后执行
+     */
+    void requestPreviews(Document document);
+    
+    /**
+     * 获取文档指定尺寸的预览图
+     * 尚未生成时安排生成并返回null；文档类型不支持预览时也返回null
+     *
+     * @throws IllegalArgumentException 尺寸名称未配置
+     */
+    Preview getPreview(Document document, String size) throws IOException;
+    
+    /**
+     * 读取预览图内容
+     */
+    InputStream openPreview(Preview preview) throws IOException;
+    
+    /**
+     * 删除内容的全部预览图，在内容被回收时调用
+     */
+    void deleteDerivatives(String contentHash);
+    
+    /**
+     * 预览图
+     *
+     * @param storageKey 存储后端中的键
+     */
+    record Preview(String contentHash, String size, String storageKey, long length) {
+        
+        public static final String MEDIA_TYPE = "image/jpeg";
+        
+        /**
+         * 强ETag：预览图由内容哈希和尺寸唯一确定，生成后不再变化
+         */
+        public String etag() {
+            return "\"" + contentHash + "-" + size + "\"";
+        }
+    }
+}
@@ -2,8 +2,12 @@ package org.max.cms.asset.service;
 
 import org.max.cms.asset.entity.Document;
 import org.max.cms.asset.entity.Folder;
+import org.max.cms.asset.service.DocumentBlobStore.StagedBlob;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.List;
 
 public interface DocumentService {
@@ -40,6 +44,16 @@ public interface DocumentService {
      */
     Document uploadDocument(MultipartFile file, Long folderId, String description);
     
+    /**
+     * 校验新文档的文件类型和目标文件夹，不通过时抛出异常
+     */
+    void validateNewDocument(String originalName, Long folderId);
+    
+    /**
+     * 引用已写入存储的内容并创建文档记录，二者在同一事务中提交
+     */
+    Document createDocument(StagedBlob staged, Long folderId, String originalName, String mimeType, String description);
+    
     /**
      * 更新文档信息
      */
@@ -66,7 +80,29 @@ public interface DocumentService {
     List<Document> getRootDocuments();
     
     /**
-     * 下载文档
+     * 获取文档内容的存储位置和校验信息，用于流式下载
      */
-    byte[] downloadDocument(Long documentId);
+    DocumentContent getDocumentContent(Long documentId);
+    
+    /**
+     * 读取文档内容中从offset开始的length个字节，用于没有本地文件的存储后端
+     */
+    InputStream openDocumentContent(DocumentContent content, long offset, long length) throws IOException;
+
+    /**
+     * 文档内容
+     *
+     * @param storageKey 存储后端中的键，历史文档为null
+     * @param localPath 内容在本地磁盘上的路径，只存在于对象存储中时为null
+     * @param lastModified 文件最后修改时间（毫秒）
+     */
+    record DocumentContent(Document document, String storageKey, Path localPath, long length, long lastModified) {
+
+        /**
+         * 强ETag：由文档ID、文件长度和修改时间组成，内容变化时随之变化
+         */
+        public String etag() {
+            return "\"" + document.getId() + "-" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,65 @@
+package org.max.cms.asset.service;
+
+import org.max.cms.asset.entity.Document;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 文档分片上传服务
+ * 上传流程：创建会话 → 按序号并行上传分片（可重试、可断点续传）→ 合并为文档。
+ * 会话不存在时抛出NoSuchElementException，状态冲突时抛出IllegalStateException，参数不合法时抛出IllegalArgumentException。
+ */
+public interface DocumentUploadService {
+    
+    /**
+     * 创建上传会话并预分配文件
+     */
+    UploadStatus createSession(CreateUploadRequest request);
+    
+    /**
+     * 查询上传会话及已接收的分片，用于断点续传
+     */
+    UploadStatus getSession(String uploadId);
+    
+    /**
+     * 写入一个分片
+     * @return true表示已写入，false表示该分片此前已接收且校验和一致
+     */
+    boolean writeChunk(String uploadId, int chunkIndex, String checksum, InputStream content) throws IOException;
+    
+    /**
+     * 所有分片到齐后合并为文档
+     */
+    Document complete(String uploadId) throws IOException;
+    
+    /**
+     * 放弃上传，删除会话和已上传的数据
+     */
+    void abort(String uploadId);
+    
+    /**
+     * 清理过期未完成的上传会话
+     * @return 清理的会话数
+     */
+    int cleanupExpired();
+    
+    /**
+     * 创建上传会话请求
+     *
+     * @param chunkSize 期望的分片大小，为空时使用默认值
+     * @param sha256 整个文件的SHA-256，可为空，提供时合并后校验
+     */
+    record CreateUploadRequest(String fileName, Long fileSize, String mimeType, Long folderId,
+                               String description, Integer chunkSize, String sha256) {
+    }
+    
+    /**
+     * 上传会话状态
+     */
+    record UploadStatus(String uploadId, long fileSize, int chunkSize, int totalChunks,
+                        List<Integer> receivedChunks, LocalDateTime expiresAt) {
+    }
+}
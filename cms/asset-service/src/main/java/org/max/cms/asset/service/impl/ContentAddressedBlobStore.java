@@ -0,0 +1,291 @@
+package org.max.cms.asset.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.max.cms.asset.config.DocumentConfig;
+import org.max.cms.asset.entity.DocumentBlob;
+import org.max.cms.asset.repository.DocumentBlobRepository;
+import org.max.cms.asset.service.DocumentBlobStore;
+import org.max.cms.asset.service.DocumentPreviewService;
+import org.max.cms.asset.storage.BlobStore;
+import org.max.cms.asset.storage.BlobStore.BlobInfo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 内容寻址的文档存储实现
+ * 上传流写入本地临时文件的同时计算SHA-256，再以 blobs/前两位/三四位/哈希 为存储键写入存储后端。
+ * 写入存储在事务外完成，不占用数据库连接和锁；之后在短事务中持PostgreSQL事务级咨询锁增加引用，
+ * 引用计数与文档记录一同提交。事务回滚留下的无记录文件由sweepOrphanedObjects按存储清单回收。
+ */
+@Service
+@Slf4j
+public class ContentAddressedBlobStore implements DocumentBlobStore {
+
+    private static final String BLOB_DIRECTORY = "blobs";
+    private static final String TEMP_DIRECTORY = "tmp";
+
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private DocumentBlobRepository documentBlobRepository;
+    
+    @Autowired
+    private DocumentConfig documentConfig;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private BlobStore blobStore;
+    
+    @Autowired
+    private DocumentPreviewService documentPreviewService;
+
+    @Override
+    public StagedBlob stage(InputStream content) throws IOException {
+        Path storageRoot = Paths.get(documentConfig.getStoragePath());
+        Path tempDirectory = Files.createDirectories(storageRoot.resolve(TEMP_DIRECTORY));
+        Path tempFile = Files.createTempFile(tempDirectory, "upload-", ".tmp");
+        try {
+            // 边写临时文件边计算哈希，只读一遍上传流
+            MessageDigest digest = sha256();
+            long size;
+            try (DigestInputStream digestStream = new DigestInputStream(content, digest)) {
+                size = Files.copy(digestStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return put(tempFile, HexFormat.of().formatHex(digest.digest()), size);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+    }
+
+    @Override
+    public StagedBlob stage(Path file, String expectedHash) throws IOException {
+        MessageDigest digest = sha256();
+        long size = 0;
+        ByteBuffer buffer = ByteBuffer.allocate(HASH_BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            int read;
+            while ((read = channel.read(buffer)) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+                size += read;
+            }
+        }
+        String contentHash = HexFormat.of().formatHex(digest.digest());
+        // 先校验再写入存储，校验失败时不留下没有记录的内容，文件留给调用方处理
+        if (expectedHash != null && !expectedHash.equalsIgnoreCase(contentHash)) {
+            throw new IllegalArgumentException("文件校验和不匹配");
+        }
+        return put(file, contentHash, size);
+    }
+
+    /**
+     * 不持有数据库连接和锁，把源文件写入存储后端；内容已存在时保留源文件
+     */
+    private StagedBlob put(Path source, String contentHash, long size) throws IOException {
+        String storageKey = blobKey(contentHash);
+        boolean deduplicated = blobStore.stat(storageKey) != null;
+        if (!deduplicated) {
+            blobStore.put(storageKey, source);
+            Files.deleteIfExists(source);
+        }
+        log.debug("Staged blob {} ({} bytes, deduplicated: {})", contentHash, size, deduplicated);
+        return new StagedBlob(contentHash, storageKey, size, deduplicated, deduplicated ? source : null);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public StoredBlob acquire(StagedBlob staged) throws IOException {
+        DocumentBlob blob = new DocumentBlob();
+        blob.setContentHash(staged.contentHash());
+        blob.setFileSize(staged.size());
+        blob.setStoragePath(staged.storageKey());
+
+        documentBlobRepository.lockContentHash(staged.contentHash());
+        String storageKey = documentBlobRepository.acquire(blob);
+        // 持锁确认内容仍在存储中：暂存后、加锁前可能被回收任务删除
+        if (blobStore.stat(storageKey) == null) {
+            if (staged.retained() == null || !Files.isRegularFile(staged.retained())) {
+                throw new IllegalStateException("内容在保存过程中被回收，请重新上传");
+            }
+            try (InputStream content = Files.newInputStream(staged.retained())) {
+                blobStore.put(storageKey, content, staged.size());
+            }
+            log.info("Re-stored blob {} collected while staging", staged.contentHash());
+        }
+        return new StoredBlob(staged.contentHash(), storageKey, staged.size(), staged.deduplicated());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(String contentHash) {
+        if (documentBlobRepository.release(contentHash) == 0) {
+            log.warn("Released blob {} has no outstanding references", contentHash);
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${document.blob-gc-interval:60000}")
+    public int collectGarbage() {
+        LocalDateTime orphanedBefore = LocalDateTime.now().minus(documentConfig.getBlobGcGracePeriod());
+        List<String> candidates;
+        try {
+            candidates = documentBlobRepository.selectCollectable(orphanedBefore, documentConfig.getBlobGcBatchSize());
+        } catch (Exception e) {
+            log.warn("Failed to query unreferenced blobs: {}", e.getMessage());
+            return 0;
+        }
+        int collected = 0;
+        for (String contentHash : candidates) {
+            try {
+                if (Boolean.TRUE.equals(transactionTemplate.execute(status -> delete(contentHash)))) {
+                    collected++;
+                }
+            } catch (Exception e) {
+                log.error("Failed to collect blob {}", contentHash, e);
+            }
+        }
+        if (collected > 0) {
+            log.info("Collected {} unreferenced document blobs", collected);
+        }
+        return collected;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${document.blob-orphan-sweep-interval:3600000}",
+            initialDelayString = "${document.blob-orphan-sweep-interval:3600000}")
+    public int sweepOrphanedObjects() {
+        long modifiedBefore = System.currentTimeMillis() - documentConfig.getBlobGcGracePeriod().toMillis();
+        int batchSize = documentConfig.getBlobGcBatchSize();
+        List<BlobInfo> batch = new ArrayList<>(batchSize);
+        int[] swept = {0};
+        try {
+            blobStore.list(BLOB_DIRECTORY + "/", info -> {
+                if (info.lastModified() < modifiedBefore && isBlobKey(info.key())) {
+                    batch.add(info);
+                    if (batch.size() >= batchSize) {
+                        swept[0] += sweep(batch);
+                        batch.clear();
+                    }
+                }
+            });
+            swept[0] += sweep(batch);
+        } catch (Exception e) {
+            log.warn("Failed to sweep orphaned blobs: {}", e.getMessage());
+        }
+        if (swept[0] > 0) {
+            log.info("Swept {} stored blobs without records", swept[0]);
+        }
+        return swept[0];
+    }
+
+    private int sweep(List<BlobInfo> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<String> contentHashes = batch.stream().map(info -> contentHash(info.key())).toList();
+        Set<String> recorded = new HashSet<>(documentBlobRepository.selectExistingHashes(contentHashes));
+        int swept = 0;
+        for (BlobInfo info : batch) {
+            String contentHash = contentHash(info.key());
+            if (recorded.contains(contentHash)) {
+                continue;
+            }
+            try {
+                if (Boolean.TRUE.equals(transactionTemplate.execute(status -> deleteOrphan(contentHash, info.key())))) {
+                    swept++;
+                }
+            } catch (Exception e) {
+                log.error("Failed to sweep orphaned blob {}", info.key(), e);
+            }
+        }
+        return swept;
+    }
+
+    /**
+     * 持锁确认仍没有内容记录后删除文件，避免与并发的引用冲突
+     */
+    private boolean deleteOrphan(String contentHash, String storageKey) {
+        documentBlobRepository.lockContentHash(contentHash);
+        if (documentBlobRepository.selectById(contentHash) != null) {
+            return false;
+        }
+        try {
+            blobStore.delete(storageKey);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to delete blob " + storageKey, e);
+        }
+        documentPreviewService.deleteDerivatives(contentHash);
+        return true;
+    }
+
+    /**
+     * 在咨询锁保护下删除记录和文件；文件删除失败时事务回滚，下次重试
+     */
+    private boolean delete(String contentHash) {
+        documentBlobRepository.lockContentHash(contentHash);
+        String storageKey = documentBlobRepository.deleteUnreferenced(contentHash);
+        if (storageKey == null) {
+            // 宽限期内已被重新引用
+            return false;
+        }
+        try {
+            blobStore.delete(storageKey);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to delete blob " + storageKey, e);
+        }
+        documentPreviewService.deleteDerivatives(contentHash);
+        return true;
+    }
+
+    /**
+     * 内容的存储键
+     */
+    public static String blobKey(String contentHash) {
+        return BLOB_DIRECTORY + "/" + contentHash.substring(0, 2) + "/" + contentHash.substring(2, 4) + "/" + contentHash;
+    }
+
+    private static boolean isBlobKey(String key) {
+        String contentHash = contentHash(key);
+        return contentHash.length() == 64 && contentHash.chars().allMatch(c -> Character.digit(c, 16) >= 0)
+                && blobKey(contentHash).equals(key);
+    }
+
+    private static String contentHash(String key) {
+        return key.substring(key.lastIndexOf('/') + 1);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
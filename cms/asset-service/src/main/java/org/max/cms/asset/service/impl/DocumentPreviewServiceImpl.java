@@ -0,0 +1,278 @@
+package org.max.cms.asset.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.max.cms.asset.config.DocumentConfig;
+import org.max.cms.asset.entity.Document;
+import org.max.cms.asset.preview.PreviewRenderer;
+import org.max.cms.asset.service.DocumentPreviewService;
+import org.max.cms.asset.storage.BlobStore;
+import org.max.cms.asset.storage.BlobStore.BlobInfo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * 文档预览图服务实现
+ * 每个内容只解码一次：按最大尺寸渲染后逐级缩小生成各尺寸的JPEG，
+ * 以 内容存储键.尺寸.jpg 为键写入存储后端。同一内容同时只有一个生成任务。
+ */
+@Service
+@Slf4j
+public class DocumentPreviewServiceImpl implements DocumentPreviewService {
+
+    private static final String TEMP_DIRECTORY = "tmp";
+
+    /**
+     * 失败记录超过该数量时清空，避免无限增长
+     */
+    private static final int MAX_FAILURE_ENTRIES = 10_000;
+
+    @Autowired
+    private BlobStore blobStore;
+    
+    @Autowired
+    private DocumentConfig documentConfig;
+    
+    @Autowired
+    private List<PreviewRenderer> renderers;
+    
+    @Autowired
+    @Qualifier("previewTaskExecutor")
+    private Executor previewTaskExecutor;
+
+    /**
+     * 正在生成的内容
+     */
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 生成失败的内容及失败时间
+     */
+    private final Map<String, Long> failures = new ConcurrentHashMap<>();
+
+    @Override
+    public void requestPreviews(Document document) {
+        PreviewRenderer renderer = rendererFor(document);
+        if (renderer == null) {
+            return;
+        }
+        String contentHash = document.getContentHash();
+        String storageKey = document.getFilePath();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // 文档和内容提交后再生成，回滚的上传不产生预览图
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    schedule(renderer, contentHash, storageKey);
+                }
+            });
+        } else {
+            schedule(renderer, contentHash, storageKey);
+        }
+    }
+
+    @Override
+    public Preview getPreview(Document document, String size) throws IOException {
+        if (!documentConfig.getPreview().getSizes().containsKey(size)) {
+            throw new IllegalArgumentException("Unknown preview size: " + size);
+        }
+        PreviewRenderer renderer = rendererFor(document);
+        if (renderer == null) {
+            return null;
+        }
+        String key = previewKey(document.getFilePath(), size);
+        BlobInfo info = blobStore.stat(key);
+        if (info == null) {
+            // 上传时未生成（历史内容、队列已满或服务重启）的补生成
+            schedule(renderer, document.getContentHash(), document.getFilePath());
+            return null;
+        }
+        return new Preview(document.getContentHash(), size, key, info.size());
+    }
+
+    @Override
+    public InputStream openPreview(Preview preview) throws IOException {
+        return blobStore.get(preview.storageKey(), 0, preview.length());
+    }
+
+    @Override
+    public void deleteDerivatives(String contentHash) {
+        String storageKey = ContentAddressedBlobStore.blobKey(contentHash);
+        for (String size : documentConfig.getPreview().getSizes().keySet()) {
+            try {
+                blobStore.delete(previewKey(storageKey, size));
+            } catch (IOException e) {
+                log.warn("Failed to delete preview {} of blob {}: {}", size, contentHash, e.getMessage());
+            }
+        }
+    }
+
+    private PreviewRenderer rendererFor(Document document) {
+        if (!documentConfig.getPreview().isEnabled() || document.getContentHash() == null) {
+            return null;
+        }
+        for (PreviewRenderer renderer : renderers) {
+            if (renderer.supports(document.getMimeType())) {
+                return renderer;
+            }
+        }
+        return null;
+    }
+
+    private void schedule(PreviewRenderer renderer, String contentHash, String storageKey) {
+        Long failedAt = failures.get(contentHash);
+        if (failedAt != null && System.currentTimeMillis() - failedAt
+                < documentConfig.getPreview().getFailureRetryInterval().toMillis()) {
+            return;
+        }
+        if (!pending.add(contentHash)) {
+            return;
+        }
+        try {
+            previewTaskExecutor.execute(() -> {
+                try {
+                    generate(renderer, contentHash, storageKey);
+                    failures.remove(contentHash);
+                } catch (Exception e) {
+                    if (failures.size() >= MAX_FAILURE_ENTRIES) {
+                        failures.clear();
+                    }
+                    failures.put(contentHash, System.currentTimeMillis());
+                    log.warn("Failed to generate previews for blob {}: {}", contentHash, e.getMessage());
+                } finally {
+                    pending.remove(contentHash);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            // 队列已满，放弃本次生成，下次上传或请求预览图时重新排队
+            pending.remove(contentHash);
+            log.debug("Preview queue full, skipped blob {}", contentHash);
+        }
+    }
+
+    /**
+     * 渲染一次内容，从大到小依次缩放并写入各尺寸的预览图
+     */
+    private void generate(PreviewRenderer renderer, String contentHash, String storageKey) throws IOException {
+        List<Map.Entry<String, Integer>> sizes = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : documentConfig.getPreview().getSizes().entrySet()) {
+            if (blobStore.stat(previewKey(storageKey, entry.getKey())) == null) {
+                sizes.add(entry);
+            }
+        }
+        if (sizes.isEmpty()) {
+            return;
+        }
+        sizes.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+
+        long start = System.nanoTime();
+        Path tempDirectory = Files.createDirectories(Paths.get(documentConfig.getStoragePath()).resolve(TEMP_DIRECTORY));
+        BufferedImage image;
+        Optional<Path> localPath = blobStore.localPath(storageKey);
+        if (localPath.isPresent()) {
+            image = renderer.render(localPath.get(), sizes.get(0).getValue());
+        } else {
+            // 对象存储中的内容先下载到临时文件，渲染器需要可随机访问的本地文件
+            Path source = Files.createTempFile(tempDirectory, "preview-", ".src");
+            try {
+                try (InputStream content = blobStore.get(storageKey)) {
+                    Files.copy(content, source, StandardCopyOption.REPLACE_EXISTING);
+                }
+                image = renderer.render(source, sizes.get(0).getValue());
+            } finally {
+                Files.deleteIfExists(source);
+            }
+        }
+        if (image == null) {
+            throw new IOException("Renderer produced no image");
+        }
+
+        for (Map.Entry<String, Integer> size : sizes) {
+            image = scale(image, size.getValue());
+            Path output = Files.createTempFile(tempDirectory, "preview-", ".jpg");
+            try {
+                writeJpeg(image, output, documentConfig.getPreview().getQuality());
+                blobStore.put(previewKey(storageKey, size.getKey()), output);
+            } finally {
+                Files.deleteIfExists(output);
+            }
+        }
+        log.debug("Generated {} previews for blob {} in {} ms", sizes.size(), contentHash,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 等比缩放到长边不超过maxDimension，并去除透明通道
+     * 每次最多缩小一半，多步双线性插值的效果接近面积平均且开销小
+     */
+    private static BufferedImage scale(BufferedImage source, int maxDimension) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double ratio = Math.min(1.0, (double) maxDimension / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(height * ratio));
+
+        BufferedImage current = source;
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage next = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, width, height, Color.WHITE, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private static void writeJpeg(BufferedImage image, Path output, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(output.toFile())) {
+            writer.setOutput(stream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * 预览图的存储键，与内容放在一起
+     */
+    private static String previewKey(String storageKey, String size) {
+        return storageKey + "." + size + ".jpg";
+    }
+}
@@ -7,21 +7,30 @@ import org.max.cms.asset.entity.Document;
 import org.max.cms.asset.entity.Folder;
 import org.max.cms.asset.repository.DocumentRepository;
 import org.max.cms.asset.repository.FolderRepository;
+import org.max.cms.asset.service.DocumentBlobStore;
+import org.max.cms.asset.service.DocumentBlobStore.StagedBlob;
+import org.max.cms.asset.service.DocumentBlobStore.StoredBlob;
+import org.max.cms.asset.service.DocumentPreviewService;
 import org.max.cms.asset.service.DocumentService;
+import org.max.cms.asset.storage.BlobStore;
+import org.max.cms.asset.storage.BlobStore.BlobInfo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.ZoneId;
 import java.util.List;
-import java.util.UUID;
 
 @Service
 @Transactional
@@ -36,6 +45,18 @@ public class DocumentServiceImpl implements DocumentService {
     
     @Autowired
     private DocumentConfig documentConfig;
+    
+    @Autowired
+    private DocumentBlobStore documentBlobStore;
+    
+    @Autowired
+    private BlobStore blobStore;
+    
+    @Autowired
+    private DocumentPreviewService documentPreviewService;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
 
     // 文件夹管理
     @Override
@@ -115,6 +136,7 @@ public class DocumentServiceImpl implements DocumentService {
 
     // 文档管理
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Document uploadDocument(MultipartFile file, Long folderId, String description) {
         if (file.isEmpty()) {
             throw new RuntimeException("文件不能为空");
@@ -125,9 +147,30 @@ public class DocumentServiceImpl implements DocumentService {
             throw new RuntimeException("文件大小超出限制");
         }
         
-        // 检查文件类型
         String originalFilename = file.getOriginalFilename();
-        String extension = getFileExtension(originalFilename);
+        validateNewDocument(originalFilename, folderId);
+        
+        try {
+            // 先在事务外写入存储，再在短事务中增加引用计数并创建记录；相同内容只增加引用计数
+            StagedBlob staged;
+            try (InputStream content = file.getInputStream()) {
+                staged = documentBlobStore.stage(content);
+            }
+            try (staged) {
+                return transactionTemplate.execute(status ->
+                        createDocument(staged, folderId, originalFilename, file.getContentType(), description));
+            }
+            
+        } catch (IOException | UncheckedIOException e) {
+            log.error("文件上传失败", e);
+            throw new RuntimeException("文件上传失败");
+        }
+    }
+
+    @Override
+    public void validateNewDocument(String originalName, Long folderId) {
+        // 检查文件类型
+        String extension = getFileExtension(originalName);
         if (!isAllowedFileType(extension)) {
             throw new RuntimeException("不支持的文件类型");
         }
@@ -139,39 +182,32 @@ public class DocumentServiceImpl implements DocumentService {
                 throw new RuntimeException("文件夹不存在");
             }
         }
-        
+    }
+
+    @Override
+    public Document createDocument(StagedBlob staged, Long folderId, String originalName, String mimeType,
+                                   String description) {
+        StoredBlob blob;
         try {
-            // 创建存储目录
-            Path uploadPath = Paths.get(documentConfig.getStoragePath());
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-            }
-            
-            // 生成唯一文件名
-            String uniqueFileName = generateUniqueFileName(originalFilename);
-            Path filePath = uploadPath.resolve(uniqueFileName);
-            
-            // 保存文件
-            file.transferTo(filePath.toFile());
-            
-            // 创建文档记录
-            Document document = Document.builder()
-                .folderId(folderId)
-                .name(originalFilename)
-                .originalName(originalFilename)
-                .filePath(filePath.toString())
-                .fileSize(file.getSize())
-                .mimeType(file.getContentType())
-                .description(description)
-                .build();
-            
-            documentRepository.insert(document);
-            return document;
-            
+            blob = documentBlobStore.acquire(staged);
         } catch (IOException e) {
-            log.error("文件上传失败", e);
-            throw new RuntimeException("文件上传失败");
+            throw new UncheckedIOException(e);
         }
+        Document document = Document.builder()
+            .folderId(folderId)
+            .name(originalName)
+            .originalName(originalName)
+            .filePath(blob.storageKey())
+            .fileSize(blob.size())
+            .mimeType(mimeType)
+            .description(description)
+            .contentHash(blob.contentHash())
+            .build();
+        
+        documentRepository.insert(document);
+        // 提交后异步生成缩略图
+        documentPreviewService.requestPreviews(document);
+        return document;
     }
 
     @Override
@@ -181,8 +217,20 @@ public class DocumentServiceImpl implements DocumentService {
             throw new RuntimeException("文档不存在");
         }
         
-        documentRepository.updateById(document);
-        return document;
+        // 只更新可编辑的字段，存储位置和内容引用不接受客户端修改；与updateById一致，空值表示不修改
+        Document update = new Document();
+        update.setId(existingDocument.getId());
+        if (document.getFolderId() != null) {
+            if (getFolderById(document.getFolderId()) == null) {
+                throw new RuntimeException("文件夹不存在");
+            }
+            update.setFolderId(document.getFolderId());
+        }
+        update.setName(document.getName());
+        update.setDescription(document.getDescription());
+        update.setDeleted(null);
+        documentRepository.updateById(update);
+        return getDocumentById(existingDocument.getId());
     }
 
     @Override
@@ -193,10 +241,15 @@ public class DocumentServiceImpl implements DocumentService {
         }
         
         try {
-            // 删除物理文件
-            Path filePath = Paths.get(document.getFilePath());
-            if (Files.exists(filePath)) {
-                Files.delete(filePath);
+            if (document.getContentHash() != null) {
+                // 释放内容引用，文件由后台任务回收
+                documentBlobStore.release(document.getContentHash());
+            } else {
+                // 历史文档：删除物理文件
+                Path filePath = Paths.get(document.getFilePath());
+                if (Files.exists(filePath)) {
+                    Files.delete(filePath);
+                }
             }
             
             // 软删除记录
@@ -237,26 +290,44 @@ public class DocumentServiceImpl implements DocumentService {
     }
 
     @Override
-    public byte[] downloadDocument(Long documentId) {
+    @Transactional(readOnly = true)
+    public DocumentContent getDocumentContent(Long documentId) {
         Document document = getDocumentById(documentId);
         if (document == null) {
-            throw new RuntimeException("文档不存在");
+            return null;
         }
         
         try {
-            Path filePath = Paths.get(document.getFilePath());
-            if (!Files.exists(filePath)) {
-                throw new RuntimeException("文件不存在");
+            // 只读取文件属性，内容由调用方按需流式读取
+            if (document.getContentHash() == null) {
+                // 历史文档：file_path仍是本地文件路径
+                Path filePath = Paths.get(document.getFilePath());
+                BasicFileAttributes attributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+                return new DocumentContent(document, null, filePath, attributes.size(),
+                        attributes.lastModifiedTime().toMillis());
             }
-            
-            return Files.readAllBytes(filePath);
-            
+            String storageKey = document.getFilePath();
+            BlobInfo info = blobStore.stat(storageKey);
+            if (info == null) {
+                throw new IOException("Blob not found: " + storageKey);
+            }
+            // 内容按哈希寻址不会变化，以文档创建时间作为修改时间，不受缓存副本的写入时间影响
+            long lastModified = document.getCreatedAt() != null
+                    ? document.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                    : info.lastModified();
+            return new DocumentContent(document, storageKey, blobStore.localPath(storageKey).orElse(null),
+                    info.size(), lastModified);
         } catch (IOException e) {
-            log.error("读取文件失败", e);
-            throw new RuntimeException("读取文件失败");
+            log.error("读取文件属性失败: {}", document.getFilePath(), e);
+            throw new RuntimeException("文件不存在");
         }
     }
 
+    @Override
+    public InputStream openDocumentContent(DocumentContent content, long offset, long length) throws IOException {
+        return blobStore.get(content.storageKey(), offset, length);
+    }
+
     // 私有方法
     private String getFileExtension(String filename) {
         if (filename == null || filename.isEmpty()) {
@@ -281,12 +352,4 @@ public class DocumentServiceImpl implements DocumentService {
         }
         return false;
     }
-
-    private String generateUniqueFileName(String originalFilename) {
-        String extension = getFileExtension(originalFilename);
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-        String uuid = UUID.randomUUID().toString().replace("-", "");
-        
-        return timestamp + "_" + uuid + "." + extension;
-    }
 }
\ No newline at end of file
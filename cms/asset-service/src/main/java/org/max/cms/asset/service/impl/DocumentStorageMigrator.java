@@ -0,0 +1,171 @@
+package org.max.cms.asset.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.max.cms.asset.config.DocumentConfig;
+import org.max.cms.asset.entity.Document;
+import org.max.cms.asset.entity.DocumentBlob;
+import org.max.cms.asset.repository.DocumentBlobRepository;
+import org.max.cms.asset.repository.DocumentRepository;
+import org.max.cms.asset.service.DocumentBlobStore;
+import org.max.cms.asset.service.DocumentBlobStore.StagedBlob;
+import org.max.cms.asset.service.DocumentBlobStore.StoredBlob;
+import org.max.cms.asset.storage.BlobStore;
+import org.max.cms.asset.storage.BlobStore.BlobInfo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * 文档存储迁移任务
+ * 启动后在后台线程中执行，可重复运行：
+ * 1. 将去重前上传的历史文档按内容写入内容寻址存储，更新文档记录后删除原文件；
+ * 2. 存储后端不是本地磁盘时，将仍在本地存储目录下的内容上传到存储后端，确认后删除本地文件。
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "document.storage.migrate", havingValue = "true")
+public class DocumentStorageMigrator implements ApplicationRunner {
+
+    @Autowired
+    private DocumentRepository documentRepository;
+    
+    @Autowired
+    private DocumentBlobRepository documentBlobRepository;
+    
+    @Autowired
+    private DocumentBlobStore documentBlobStore;
+    
+    @Autowired
+    private BlobStore blobStore;
+    
+    @Autowired
+    private DocumentConfig documentConfig;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Thread thread = new Thread(this::migrate, "document-storage-migrator");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void migrate() {
+        try {
+            int documents = migrateLegacyDocuments();
+            int blobs = "local".equals(documentConfig.getStorage().getType()) ? 0 : uploadLocalBlobs();
+            log.info("Document storage migration finished: {} legacy documents, {} local blobs uploaded",
+                    documents, blobs);
+        } catch (Exception e) {
+            log.error("Document storage migration failed", e);
+        }
+    }
+
+    /**
+     * 迁移历史文档，单个文档失败时跳过并继续
+     */
+    private int migrateLegacyDocuments() {
+        int batchSize = documentConfig.getStorage().getMigrateBatchSize();
+        int migrated = 0;
+        long afterId = 0;
+        List<Document> batch;
+        do {
+            batch = documentRepository.selectLegacyAfter(afterId, batchSize);
+            for (Document document : batch) {
+                afterId = document.getId();
+                Path legacyFile = Paths.get(document.getFilePath());
+                if (!Files.isRegularFile(legacyFile)) {
+                    log.warn("Legacy document {} file missing: {}", document.getId(), legacyFile);
+                    continue;
+                }
+                // 事务外写入存储，事务内只增加引用并更新文档
+                try (StagedBlob staged = stage(legacyFile)) {
+                    Boolean updated = transactionTemplate.execute(status -> {
+                        StoredBlob blob;
+                        try {
+                            blob = documentBlobStore.acquire(staged);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        if (documentRepository.updateContent(document.getId(), blob.storageKey(),
+                                blob.contentHash(), blob.size()) == 0) {
+                            // 已被并发迁移或删除，回滚引用
+                            status.setRollbackOnly();
+                            return false;
+                        }
+                        return true;
+                    });
+                    if (Boolean.TRUE.equals(updated)) {
+                        Files.deleteIfExists(legacyFile);
+                        migrated++;
+                    }
+                } catch (Exception e) {
+                    log.error("Failed to migrate legacy document {}", document.getId(), e);
+                }
+            }
+        } while (batch.size() == batchSize);
+        return migrated;
+    }
+
+    /**
+     * 复制历史文件写入存储，历史文件在文档更新提交后才删除
+     */
+    private StagedBlob stage(Path legacyFile) throws IOException {
+        try (InputStream content = Files.newInputStream(legacyFile)) {
+            return documentBlobStore.stage(content);
+        }
+    }
+
+    /**
+     * 上传本地存储目录中存储后端尚未保存的内容
+     */
+    private int uploadLocalBlobs() {
+        int batchSize = documentConfig.getStorage().getMigrateBatchSize();
+        Path storageRoot = Paths.get(documentConfig.getStoragePath());
+        int uploaded = 0;
+        String afterHash = null;
+        List<DocumentBlob> batch;
+        do {
+            batch = documentBlobRepository.selectAfter(afterHash, batchSize);
+            for (DocumentBlob blob : batch) {
+                afterHash = blob.getContentHash();
+                String storageKey = blob.getStoragePath();
+                Path localFile = storageRoot.resolve(storageKey);
+                if (!Files.isRegularFile(localFile)) {
+                    continue;
+                }
+                try {
+                    long size = Files.size(localFile);
+                    BlobInfo existing = blobStore.stat(storageKey);
+                    if (existing == null) {
+                        try (InputStream content = Files.newInputStream(localFile)) {
+                            blobStore.put(storageKey, content, size);
+                        }
+                        existing = blobStore.stat(storageKey);
+                    }
+                    if (existing != null && existing.size() == size) {
+                        Files.deleteIfExists(localFile);
+                        uploaded++;
+                    } else {
+                        log.warn("Blob {} size mismatch after upload, keeping local file", storageKey);
+                    }
+                } catch (IOException e) {
+                    log.error("Failed to upload blob {}", storageKey, e);
+                }
+            }
+        } while (batch.size() == batchSize);
+        return uploaded;
+    }
+}
@@ -0,0 +1,323 @@
+package org.max.cms.asset.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.max.cms.asset.config.DocumentConfig;
+import org.max.cms.asset.entity.Document;
+import org.max.cms.asset.entity.UploadSession;
+import org.max.cms.asset.repository.UploadSessionRepository;
+import org.max.cms.asset.service.DocumentBlobStore;
+import org.max.cms.asset.service.DocumentBlobStore.StagedBlob;
+import org.max.cms.asset.service.DocumentService;
+import org.max.cms.asset.service.DocumentUploadService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 文档分片上传服务实现
+ * 创建会话时在存储目录下预分配与文件等长的临时文件，各分片按 序号×分片大小 的偏移用定位写入，
+ * 分片之间互不影响，可以并行上传。每个请求只使用固定大小的缓冲区，内存占用与文件大小无关。
+ * 合并时在事务外把临时文件交给内容存储，使用本地存储时直接移动，不再复制数据；
+ * 之后只在短事务中增加引用计数、创建文档记录并删除会话。
+ */
+@Service
+@Slf4j
+public class DocumentUploadServiceImpl implements DocumentUploadService {
+
+    private static final String UPLOAD_DIRECTORY = "uploads";
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private static final int CLEANUP_BATCH_SIZE = 100;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * 正在写入的分片（上传ID:分片序号），同一分片同时只允许一个请求写入临时文件
+     * 临时文件位于本节点磁盘，进程内占用即可覆盖所有写入方
+     */
+    private final Set<String> writingChunks = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+    
+    @Autowired
+    private DocumentService documentService;
+    
+    @Autowired
+    private DocumentBlobStore documentBlobStore;
+    
+    @Autowired
+    private DocumentConfig documentConfig;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Override
+    public UploadStatus createSession(CreateUploadRequest request) {
+        if (request.fileName() == null || request.fileName().isBlank()) {
+            throw new IllegalArgumentException("文件名不能为空");
+        }
+        if (request.fileSize() == null || request.fileSize() <= 0) {
+            throw new IllegalArgumentException("文件大小不正确");
+        }
+        if (request.fileSize() > documentConfig.getMaxUploadSize()) {
+            throw new IllegalArgumentException("文件大小超出限制");
+        }
+        if (request.sha256() != null && !isSha256(request.sha256())) {
+            throw new IllegalArgumentException("文件校验和格式不正确");
+        }
+        documentService.validateNewDocument(request.fileName(), request.folderId());
+
+        int chunkSize = request.chunkSize() != null ? request.chunkSize() : documentConfig.getUploadChunkSize();
+        chunkSize = Math.max(documentConfig.getMinUploadChunkSize(), Math.min(chunkSize, documentConfig.getMaxUploadChunkSize()));
+        long totalChunks = (request.fileSize() + chunkSize - 1) / chunkSize;
+
+        UploadSession session = UploadSession.builder()
+            .id(newUploadId())
+            .folderId(request.folderId())
+            .originalName(request.fileName())
+            .mimeType(request.mimeType())
+            .description(request.description())
+            .fileSize(request.fileSize())
+            .chunkSize(chunkSize)
+            .totalChunks((int) totalChunks)
+            .contentHash(request.sha256() != null ? request.sha256().toLowerCase(Locale.ROOT) : null)
+            .status(UploadSession.STATUS_ACTIVE)
+            .expiresAt(LocalDateTime.now().plus(documentConfig.getUploadSessionTtl()))
+            .build();
+
+        Path partFile = partFile(session.getId());
+        try {
+            Files.createDirectories(partFile.getParent());
+            // 预分配文件，分片直接写入最终位置
+            try (RandomAccessFile file = new RandomAccessFile(partFile.toFile(), "rw")) {
+                file.setLength(session.getFileSize());
+            }
+        } catch (IOException e) {
+            log.error("预分配上传文件失败: {}", partFile, e);
+            throw new RuntimeException("创建上传会话失败");
+        }
+        uploadSessionRepository.insert(session);
+        return toStatus(session, List.of());
+    }
+
+    @Override
+    public UploadStatus getSession(String uploadId) {
+        UploadSession session = activeSession(uploadId);
+        return toStatus(session, uploadSessionRepository.selectChunkIndexes(uploadId));
+    }
+
+    @Override
+    public boolean writeChunk(String uploadId, int chunkIndex, String checksum, InputStream content) throws IOException {
+        UploadSession session = activeSession(uploadId);
+        if (chunkIndex < 0 || chunkIndex >= session.getTotalChunks()) {
+            throw new IllegalArgumentException("分片序号超出范围");
+        }
+        if (checksum == null || !isSha256(checksum)) {
+            throw new IllegalArgumentException("分片校验和格式不正确");
+        }
+        String expectedChecksum = checksum.toLowerCase(Locale.ROOT);
+
+        // 先占用分片再检查和写入，避免并发请求在同一偏移写入不同内容
+        String chunkKey = uploadId + ":" + chunkIndex;
+        if (!writingChunks.add(chunkKey)) {
+            throw new IllegalStateException("分片正在上传");
+        }
+        try {
+            // 重试已接收的分片时不再写入，避免覆盖已确认的数据
+            String receivedChecksum = uploadSessionRepository.selectChunkChecksum(uploadId, chunkIndex);
+            if (receivedChecksum != null) {
+                if (receivedChecksum.equals(expectedChecksum)) {
+                    return false;
+                }
+                throw new IllegalStateException("分片已接收且内容不一致");
+            }
+            writeChunk(session, chunkIndex, expectedChecksum, content);
+            if (uploadSessionRepository.insertChunk(uploadId, chunkIndex, expectedChecksum) == 0
+                    && !expectedChecksum.equals(uploadSessionRepository.selectChunkChecksum(uploadId, chunkIndex))) {
+                throw new IllegalStateException("分片已接收且内容不一致");
+            }
+            return true;
+        } finally {
+            writingChunks.remove(chunkKey);
+        }
+    }
+
+    /**
+     * 将分片写入临时文件的对应偏移，边写边校验长度和SHA-256
+     */
+    private void writeChunk(UploadSession session, int chunkIndex, String expectedChecksum, InputStream content)
+            throws IOException {
+        int expectedLength = session.chunkLength(chunkIndex);
+        MessageDigest digest = sha256();
+        long position = session.chunkOffset(chunkIndex);
+        long written = 0;
+        byte[] buffer = new byte[WRITE_BUFFER_SIZE];
+        try (FileChannel channel = FileChannel.open(partFile(session.getId()), StandardOpenOption.WRITE)) {
+            int read;
+            while ((read = content.read(buffer)) != -1) {
+                if (written + read > expectedLength) {
+                    throw new IllegalArgumentException("分片长度超出预期");
+                }
+                digest.update(buffer, 0, read);
+                ByteBuffer source = ByteBuffer.wrap(buffer, 0, read);
+                while (source.hasRemaining()) {
+                    position += channel.write(source, position);
+                }
+                written += read;
+            }
+        }
+        if (written != expectedLength) {
+            throw new IllegalArgumentException("分片长度不正确，期望" + expectedLength + "字节，实际" + written + "字节");
+        }
+        if (!HexFormat.of().formatHex(digest.digest()).equals(expectedChecksum)) {
+            throw new IllegalArgumentException("分片校验和不匹配");
+        }
+    }
+
+    @Override
+    public Document complete(String uploadId) throws IOException {
+        UploadSession session = activeSession(uploadId);
+        int receivedChunks = uploadSessionRepository.countChunks(uploadId);
+        if (receivedChunks != session.getTotalChunks()) {
+            throw new IllegalStateException("分片未全部上传，已接收" + receivedChunks + "/" + session.getTotalChunks());
+        }
+        // 先占用会话，防止并发重复合并
+        if (uploadSessionRepository.markCompleted(uploadId) == 0) {
+            throw new IllegalStateException("上传会话已完成");
+        }
+
+        // 先校验整体SHA-256再写入存储，写入前失败时恢复会话，临时文件保留
+        StagedBlob staged;
+        try {
+            staged = documentBlobStore.stage(partFile(uploadId), session.getContentHash());
+        } catch (IllegalArgumentException e) {
+            // 整体校验和不匹配：已确认的分片中有错误内容，清除分片记录后恢复会话，客户端需重新上传全部分片
+            transactionTemplate.executeWithoutResult(status -> {
+                uploadSessionRepository.deleteChunks(uploadId);
+                uploadSessionRepository.reopen(uploadId);
+            });
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            uploadSessionRepository.reopen(uploadId);
+            throw e;
+        }
+        try (staged) {
+            return transactionTemplate.execute(status -> {
+                Document document = documentService.createDocument(staged, session.getFolderId(),
+                        session.getOriginalName(), session.getMimeType(), session.getDescription());
+                uploadSessionRepository.deleteById(uploadId);
+                return document;
+            });
+        } catch (RuntimeException e) {
+            // 临时文件已交给内容存储，会话无法再次合并
+            delete(uploadId);
+            throw e;
+        }
+    }
+
+    @Override
+    public void abort(String uploadId) {
+        activeSession(uploadId);
+        delete(uploadId);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${document.upload-cleanup-interval:600000}")
+    public int cleanupExpired() {
+        List<String> expired;
+        try {
+            expired = uploadSessionRepository.selectExpired(LocalDateTime.now(), CLEANUP_BATCH_SIZE);
+        } catch (Exception e) {
+            log.warn("Failed to query expired upload sessions: {}", e.getMessage());
+            return 0;
+        }
+        for (String uploadId : expired) {
+            delete(uploadId);
+        }
+        if (!expired.isEmpty()) {
+            log.info("Cleaned up {} expired upload sessions", expired.size());
+        }
+        return expired.size();
+    }
+
+    private void delete(String uploadId) {
+        try {
+            Files.deleteIfExists(partFile(uploadId));
+        } catch (IOException e) {
+            log.warn("Failed to delete upload file of session {}", uploadId, e);
+        }
+        uploadSessionRepository.deleteById(uploadId);
+    }
+
+    private UploadSession activeSession(String uploadId) {
+        UploadSession session = uploadSessionRepository.selectById(uploadId);
+        if (session == null) {
+            throw new NoSuchElementException("上传会话不存在");
+        }
+        if (!UploadSession.STATUS_ACTIVE.equals(session.getStatus())) {
+            throw new IllegalStateException("上传会话已完成");
+        }
+        if (session.getExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new IllegalStateException("上传会话已过期");
+        }
+        return session;
+    }
+
+    private Path partFile(String uploadId) {
+        return Paths.get(documentConfig.getStoragePath()).resolve(UPLOAD_DIRECTORY).resolve(uploadId + ".part");
+    }
+
+    private static UploadStatus toStatus(UploadSession session, List<Integer> receivedChunks) {
+        return new UploadStatus(session.getId(), session.getFileSize(), session.getChunkSize(),
+                session.getTotalChunks(), receivedChunks, session.getExpiresAt());
+    }
+
+    private static String newUploadId() {
+        byte[] bytes = new byte[16];
+        RANDOM.nextBytes(bytes);
+        return HexFormat.of().formatHex(bytes);
+    }
+
+    private static boolean isSha256(String value) {
+        if (value.length() != 64) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.digit(value.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.max.cms.asset.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * 文件存储后端SPI
+ * 以存储键（使用'/'分隔的相对路径）读写文件内容，实现包括本地文件系统、S3兼容对象存储和冷热分层存储。
+ * 调用方只保存存储键，不依赖具体的存储位置。
+ */
+public interface BlobStore {
+    
+    /**
+     * 写入本地文件，调用后源文件可能被移走；目标已存在时覆盖
+     */
+    void put(String key, Path source) throws IOException;
+    
+    /**
+     * 写入指定长度的流
+     */
+    void put(String key, InputStream content, long length) throws IOException;
+    
+    /**
+     * 读取全部内容
+     */
+    default InputStream get(String key) throws IOException {
+        BlobInfo info = stat(key);
+        if (info == null) {
+            throw new NoSuchFileException(key);
+        }
+        return get(key, 0, info.size());
+    }
+    
+    /**
+     * 读取从offset开始的length个字节
+     */
+    InputStream get(String key, long offset, long length) throws IOException;
+    
+    /**
+     * 查询文件信息，不存在时返回null
+     */
+    BlobInfo stat(String key) throws IOException;
+    
+    /**
+     * 删除文件
+     * @return 文件存在并已删除时返回true
+     */
+    boolean delete(String key) throws IOException;
+    
+    /**
+     * 按前缀列出文件
+     */
+    void list(String prefix, Consumer<BlobInfo> consumer) throws IOException;
+    
+    /**
+     * 文件在本地磁盘上的路径，存在时可由容器零拷贝发送
+     */
+    default Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+    
+    /**
+     * 文件信息
+     *
+     * @param lastModified 最后修改时间（毫秒）
+     */
+    record BlobInfo(String key, long size, long lastModified) {
+    }
+}
@@ -0,0 +1,146 @@
+package org.max.cms.asset.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 冷热分层存储
+ * 对象存储保存全部内容，本地磁盘作为热数据缓存：写入时同时写两层，读取时优先读本地，
+ * 本地未命中时从对象存储拉取到本地后再读。本地缓存超过容量时按最近访问时间淘汰最久未访问的文件。
+ */
+@Slf4j
+public class TieredBlobStore implements BlobStore {
+
+    private final LocalBlobStore hot;
+    private final BlobStore cold;
+    private final long hotCapacity;
+
+    /**
+     * 本地文件的最近访问时间，未记录的按修改时间计
+     */
+    private final Map<String, Long> accessTimes = new ConcurrentHashMap<>();
+
+    public TieredBlobStore(LocalBlobStore hot, BlobStore cold, long hotCapacity) {
+        this.hot = hot;
+        this.cold = cold;
+        this.hotCapacity = hotCapacity;
+    }
+
+    @Override
+    public void put(String key, Path source) throws IOException {
+        hot.put(key, source);
+        try (InputStream content = hot.get(key)) {
+            cold.put(key, content, Files.size(hot.resolve(key)));
+        } catch (IOException | RuntimeException e) {
+            // 对象存储写入失败时不保留本地副本，避免出现只存在于缓存中的内容
+            hot.delete(key);
+            throw e;
+        }
+        touch(key);
+    }
+
+    @Override
+    public void put(String key, InputStream content, long length) throws IOException {
+        cold.put(key, content, length);
+        accessTimes.remove(key);
+    }
+
+    @Override
+    public InputStream get(String key, long offset, long length) throws IOException {
+        if (hot.stat(key) == null) {
+            fetch(key);
+        }
+        touch(key);
+        return hot.get(key, offset, length);
+    }
+
+    @Override
+    public BlobInfo stat(String key) throws IOException {
+        BlobInfo info = hot.stat(key);
+        return info != null ? info : cold.stat(key);
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        accessTimes.remove(key);
+        boolean deleted = hot.delete(key);
+        return cold.delete(key) || deleted;
+    }
+
+    @Override
+    public void list(String prefix, Consumer<BlobInfo> consumer) throws IOException {
+        cold.list(prefix, consumer);
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        Optional<Path> path = hot.localPath(key);
+        path.ifPresent(p -> touch(key));
+        return path;
+    }
+
+    /**
+     * 从对象存储拉取到本地缓存
+     */
+    private void fetch(String key) throws IOException {
+        BlobInfo info = cold.stat(key);
+        if (info == null) {
+            throw new NoSuchFileException(key);
+        }
+        try (InputStream content = cold.get(key, 0, info.size())) {
+            hot.put(key, content, info.size());
+        }
+        log.debug("Fetched blob {} ({} bytes) into local cache", key, info.size());
+    }
+
+    private void touch(String key) {
+        accessTimes.put(key, System.currentTimeMillis());
+    }
+
+    /**
+     * 本地缓存超过容量时淘汰最久未访问的文件
+     */
+    @Scheduled(fixedDelayString = "${document.storage.tiered.evict-interval:60000}")
+    public void evict() {
+        List<BlobInfo> cached = new ArrayList<>();
+        try {
+            hot.list("", cached::add);
+        } catch (IOException e) {
+            log.warn("Failed to scan local blob cache: {}", e.getMessage());
+            return;
+        }
+        long total = cached.stream().mapToLong(BlobInfo::size).sum();
+        if (total <= hotCapacity) {
+            return;
+        }
+        cached.sort(Comparator.comparingLong(info -> accessTimes.getOrDefault(info.key(), info.lastModified())));
+        int evicted = 0;
+        for (BlobInfo info : cached) {
+            if (total <= hotCapacity) {
+                break;
+            }
+            try {
+                hot.delete(info.key());
+                accessTimes.remove(info.key());
+                total -= info.size();
+                evicted++;
+            } catch (IOException e) {
+                log.warn("Failed to evict cached blob {}: {}", info.key(), e.getMessage());
+            }
+        }
+        log.info("Evicted {} blobs from local cache, {} bytes remaining", evicted, total);
+    }
+}
@@ -0,0 +1,93 @@
+package org.max.cms.asset.preview;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.max.cms.asset.config.DocumentConfig;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * PDF渲染器测试
+ */
+class PdfPreviewRendererTest {
+
+    private final DocumentConfig documentConfig = new DocumentConfig();
+    private final PdfPreviewRenderer renderer = new PdfPreviewRenderer();
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(renderer, "documentConfig", documentConfig);
+    }
+
+    @Test
+    void supportsPdfMimeTypes() {
+        assertThat(renderer.supports("application/pdf")).isTrue();
+        assertThat(renderer.supports("Application/PDF; version=1.7")).isTrue();
+        assertThat(renderer.supports("application/msword")).isFalse();
+        assertThat(renderer.supports(null)).isFalse();
+    }
+
+    @Test
+    void rendersFirstPageAtTwiceRequestedSize() throws IOException {
+        Path pdf = pdf(PDRectangle.A4, PDRectangle.LETTER);
+
+        BufferedImage image = renderer.render(pdf, 320);
+
+        assertThat(image.getHeight()).isEqualTo(640);
+        assertThat(image.getWidth()).isCloseTo(Math.round(640 * PDRectangle.A4.getWidth() / PDRectangle.A4.getHeight()),
+                within(1));
+        // 首页中央填充为红色
+        assertThat(new Color(image.getRGB(image.getWidth() / 2, image.getHeight() / 2))).isEqualTo(Color.RED);
+    }
+
+    @Test
+    void limitsRenderedPixels() throws IOException {
+        documentConfig.getPreview().setMaxSourcePixels(10_000);
+        Path pdf = pdf(PDRectangle.A4);
+
+        BufferedImage image = renderer.render(pdf, 640);
+
+        assertThat((long) image.getWidth() * image.getHeight()).isLessThanOrEqualTo(10_200);
+    }
+
+    @Test
+    void rejectsInvalidFiles() throws IOException {
+        Path notPdf = Files.writeString(tempDir.resolve("broken.pdf"), "not a pdf");
+
+        assertThatThrownBy(() -> renderer.render(notPdf, 160)).isInstanceOf(IOException.class);
+    }
+
+    private Path pdf(PDRectangle... pages) throws IOException {
+        Path file = tempDir.resolve("document.pdf");
+        try (PDDocument document = new PDDocument()) {
+            for (PDRectangle size : pages) {
+                PDPage page = new PDPage(size);
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.setNonStrokingColor(Color.RED);
+                    content.addRect(size.getWidth() / 4, size.getHeight() / 4, size.getWidth() / 2, size.getHeight() / 2);
+                    content.fill();
+                }
+            }
+            document.save(file.toFile());
+        }
+        return file;
+    }
+}
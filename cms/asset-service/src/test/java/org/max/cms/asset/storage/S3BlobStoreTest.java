@@ -0,0 +1,164 @@
+package org.max.cms.asset.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * S3兼容对象存储测试
+ * 签名使用AWS SigV4文档中的示例请求验证，读写操作对接内存中的S3服务桩
+ */
+class S3BlobStoreTest {
+
+    private static final String EXAMPLE_SECRET = "wJalrXUtnFEMI/K7MDENG/bPxRfiCYEXAMPLEKEY";
+    private static final String EMPTY_PAYLOAD_HASH = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+
+    private StubS3Server server;
+    private S3BlobStore blobStore;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new StubS3Server(2);
+        blobStore = server.blobStore("cms");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    /**
+     * AWS文档示例：GET Object，带Range头
+     */
+    @Test
+    void signsGetObjectExample() {
+        Map<String, String> headers = new TreeMap<>();
+        headers.put("host", "examplebucket.s3.amazonaws.com");
+        headers.put("range", "bytes=0-9");
+        headers.put("x-amz-content-sha256", EMPTY_PAYLOAD_HASH);
+        headers.put("x-amz-date", "20130524T000000Z");
+
+        String canonicalRequest = S3BlobStore.canonicalRequest("GET", "/test.txt", "", headers, EMPTY_PAYLOAD_HASH);
+
+        assertThat(canonicalRequest).isEqualTo("""
+                GET
+                /test.txt
+
+                host:examplebucket.s3.amazonaws.com
+                range:bytes=0-9
+                x-amz-content-sha256:e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855
+                x-amz-date:20130524T000000Z
+
+                host;range;x-amz-content-sha256;x-amz-date
+                e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855""");
+        assertThat(S3BlobStore.signature(EXAMPLE_SECRET, "us-east-1", "20130524T000000Z", canonicalRequest))
+                .isEqualTo("f0e8bdb87c964420e857bd35b5d6ed310bd44f0170aba48dd91039c6036bdb41");
+    }
+
+    /**
+     * AWS文档示例：GET Bucket (List Objects)，带查询参数
+     */
+    @Test
+    void signsListObjectsExample() {
+        Map<String, String> headers = new TreeMap<>();
+        headers.put("host", "examplebucket.s3.amazonaws.com");
+        headers.put("x-amz-content-sha256", EMPTY_PAYLOAD_HASH);
+        headers.put("x-amz-date", "20130524T000000Z");
+
+        String canonicalRequest = S3BlobStore.canonicalRequest("GET", "/", "max-keys=2&prefix=J", headers,
+                EMPTY_PAYLOAD_HASH);
+
+        assertThat(S3BlobStore.signature(EXAMPLE_SECRET, "us-east-1", "20130524T000000Z", canonicalRequest))
+                .isEqualTo("34b48302e7b5fa45bde8084f4b7868a86f0a534bc59db6670ed5711ef69dc6f7");
+    }
+
+    @Test
+    void putsFileUnderKeyPrefixAndRemovesSource() throws IOException {
+        Path source = Files.writeString(tempDir.resolve("upload"), "hello world");
+
+        blobStore.put("blobs/ab/cd", source);
+
+        assertThat(server.object("cms/blobs/ab/cd")).asString(StandardCharsets.UTF_8).isEqualTo("hello world");
+        assertThat(source).doesNotExist();
+    }
+
+    @Test
+    void readsRequestedRange() throws IOException {
+        putString("blobs/range", "0123456789");
+
+        try (InputStream content = blobStore.get("blobs/range", 3, 4)) {
+            assertThat(content.readAllBytes()).asString(StandardCharsets.UTF_8).isEqualTo("3456");
+        }
+        try (InputStream content = blobStore.get("blobs/range")) {
+            assertThat(content.readAllBytes()).asString(StandardCharsets.UTF_8).isEqualTo("0123456789");
+        }
+    }
+
+    @Test
+    void reportsMissingObjects() throws IOException {
+        assertThat(blobStore.stat("blobs/missing")).isNull();
+        assertThat(blobStore.delete("blobs/missing")).isFalse();
+        assertThatThrownBy(() -> blobStore.get("blobs/missing", 0, 1)).isInstanceOf(NoSuchFileException.class);
+    }
+
+    @Test
+    void statsAndDeletesObjects() throws IOException {
+        putString("blobs/stat", "twelve bytes");
+
+        BlobStore.BlobInfo info = blobStore.stat("blobs/stat");
+
+        assertThat(info.key()).isEqualTo("blobs/stat");
+        assertThat(info.size()).isEqualTo(12);
+        assertThat(info.lastModified()).isPositive();
+        assertThat(blobStore.delete("blobs/stat")).isTrue();
+        assertThat(server.object("cms/blobs/stat")).isNull();
+    }
+
+    @Test
+    void listsAcrossContinuationPages() throws IOException {
+        for (String key : List.of("blobs/a", "blobs/b", "blobs/c", "blobs/d", "blobs/e", "other/f")) {
+            putString(key, key);
+        }
+
+        List<String> keys = new ArrayList<>();
+        blobStore.list("blobs/", info -> keys.add(info.key()));
+
+        assertThat(keys).containsExactly("blobs/a", "blobs/b", "blobs/c", "blobs/d", "blobs/e");
+        assertThat(server.requests()).filteredOn("GET "::equals).hasSize(3);
+    }
+
+    @Test
+    void failsStalledRequestsAfterTimeout() {
+        server.stall();
+
+        assertThatThrownBy(() -> putString("blobs/stalled", "content"))
+                .isInstanceOf(HttpTimeoutException.class);
+        assertThatThrownBy(() -> blobStore.get("blobs/stalled", 0, 1))
+                .isInstanceOf(HttpTimeoutException.class);
+    }
+
+    private void putString(String key, String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        blobStore.put(key, new ByteArrayInputStream(bytes), bytes.length);
+    }
+}
@@ -0,0 +1,98 @@
+package org.max.cms.asset.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 冷热分层存储测试
+ * 热层为临时目录，冷层对接内存中的S3服务桩
+ */
+class TieredBlobStoreTest {
+
+    private StubS3Server server;
+    private LocalBlobStore hot;
+    private TieredBlobStore blobStore;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new StubS3Server(100);
+        hot = new LocalBlobStore(tempDir.resolve("cache"));
+        blobStore = new TieredBlobStore(hot, server.blobStore(""), 8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void putWritesBothTiers() throws IOException {
+        blobStore.put("blobs/a", source("a", "alpha"));
+
+        assertThat(hot.stat("blobs/a")).isNotNull();
+        assertThat(server.object("blobs/a")).asString(StandardCharsets.UTF_8).isEqualTo("alpha");
+    }
+
+    @Test
+    void fetchesIntoCacheOnLocalMiss() throws IOException {
+        blobStore.put("blobs/a", source("a", "alpha"));
+        hot.delete("blobs/a");
+
+        try (InputStream content = blobStore.get("blobs/a", 1, 3)) {
+            assertThat(content.readAllBytes()).asString(StandardCharsets.UTF_8).isEqualTo("lph");
+        }
+        assertThat(hot.stat("blobs/a")).isNotNull();
+        assertThat(server.requests()).contains("HEAD blobs/a", "GET blobs/a");
+    }
+
+    @Test
+    void dropsLocalCopyWhenObjectStoreWriteFails() throws IOException {
+        server.stall();
+
+        assertThatThrownBy(() -> blobStore.put("blobs/a", source("a", "alpha"))).isInstanceOf(IOException.class);
+        assertThat(hot.stat("blobs/a")).isNull();
+    }
+
+    @Test
+    void evictsLeastRecentlyAccessedBeyondCapacity() throws Exception {
+        blobStore.put("blobs/a", source("a", "alpha"));
+        Thread.sleep(5);
+        blobStore.put("blobs/b", source("b", "bravo"));
+        Thread.sleep(5);
+        blobStore.get("blobs/a", 0, 1).close();
+
+        blobStore.evict();
+
+        assertThat(hot.stat("blobs/a")).isNotNull();
+        assertThat(hot.stat("blobs/b")).isNull();
+        assertThat(blobStore.stat("blobs/b")).isNotNull();
+    }
+
+    @Test
+    void deleteRemovesBothTiers() throws IOException {
+        blobStore.put("blobs/a", source("a", "alpha"));
+
+        assertThat(blobStore.delete("blobs/a")).isTrue();
+        assertThat(hot.stat("blobs/a")).isNull();
+        assertThat(server.object("blobs/a")).isNull();
+        assertThat(blobStore.delete("blobs/a")).isFalse();
+    }
+
+    private Path source(String name, String content) throws IOException {
+        return Files.writeString(tempDir.resolve(name), content);
+    }
+}
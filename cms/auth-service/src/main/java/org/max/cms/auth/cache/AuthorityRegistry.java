@@ -0,0 +1,87 @@
+package org.max.cms.auth.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 权限注册表
+ * 对权限字符串进行驻留，并为每一种不同的权限组合提供共享的不可变权限列表。
+ * 大多数用户只属于少数几种角色组合，因此请求之间可以复用同一个列表实例。
+ */
+@Slf4j
+@Component
+public class AuthorityRegistry {
+
+    /**
+     * 指纹长度（字节），截断后的SHA-256
+     */
+    private static final int FINGERPRINT_BYTES = 12;
+
+    private final Map<String, SimpleGrantedAuthority> authorities = new ConcurrentHashMap<>();
+
+    private final Map<String, List<SimpleGrantedAuthority>> authoritySets = new ConcurrentHashMap<>();
+
+    @Value("${auth.authority-registry.maximum-size:1024}")
+    private int maximumSize;
+
+    /**
+     * 计算权限组合指纹
+     * 与顺序和重复无关，相同的权限集合总是得到相同的指纹
+     */
+    public static String fingerprint(Collection<String> permissions) {
+        String[] sorted = permissions.stream().distinct().sorted().toArray(String[]::new);
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            byte[] digest = messageDigest.digest(String.join("\n", sorted).getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, FINGERPRINT_BYTES));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * 获取权限组合对应的共享权限列表
+     * 指纹已注册时直接返回，无需再根据权限字符串构建列表；
+     * 旧token未携带指纹时按权限列表计算
+     *
+     * @param fingerprint token中携带的权限指纹，可为空
+     * @param permissions token中的权限列表
+     */
+    public List<SimpleGrantedAuthority> resolve(String fingerprint, List<String> permissions) {
+        String key = fingerprint != null ? fingerprint : fingerprint(permissions);
+        List<SimpleGrantedAuthority> registered = authoritySets.get(key);
+        if (registered != null) {
+            return registered;
+        }
+
+        List<SimpleGrantedAuthority> authoritySet = permissions.stream()
+                .distinct()
+                .map(this::intern)
+                .toList();
+        if (authoritySets.size() < maximumSize) {
+            List<SimpleGrantedAuthority> existing = authoritySets.putIfAbsent(key, authoritySet);
+            return existing != null ? existing : authoritySet;
+        }
+        log.debug("Authority registry is full ({} sets), not registering {}", maximumSize, key);
+        return authoritySet;
+    }
+
+    /**
+     * 获取驻留的权限对象
+     */
+    public SimpleGrantedAuthority intern(String permission) {
+        return authorities.computeIfAbsent(permission, SimpleGrantedAuthority::new);
+    }
+}
@@ -0,0 +1,220 @@
+package org.max.cms.auth.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.max.cms.auth.repository.PermissionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 版本化的权限目录
+ * 将权限编码按ID顺序编号，使token中的权限列表可以编码为位图。
+ * 目录内容变化时生成新版本，旧版本保留一段时间用于解码已签发的token。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PermissionCatalog {
+
+    private static final int VERSION_BYTES = 6;
+
+    private final PermissionRepository permissionRepository;
+
+    @Value("${auth.token.catalog-versions:8}")
+    private int retainedVersions;
+
+    /**
+     * 遇到未知目录版本时强制重新加载的最小间隔，防止伪造的版本号反复触发数据库查询
+     */
+    @Value("${auth.token.catalog-reload-interval:5s}")
+    private Duration unknownVersionReloadInterval;
+
+    /**
+     * 上次因未知版本强制重新加载的时间（纳秒），0表示尚未发生
+     */
+    private long lastForcedReload;
+
+    private final Map<String, Version> versions = new ConcurrentHashMap<>();
+
+    private final Deque<String> versionOrder = new ArrayDeque<>();
+
+    private volatile Version current;
+
+    private volatile boolean stale = true;
+
+    /**
+     * 将权限列表编码为当前版本目录下的位图
+     * 存在目录中没有的权限时返回null，调用方应退回普通列表格式
+     */
+    public CompactPermissions encode(Collection<String> permissions) {
+        Version version = currentVersion();
+        BitSet bits = version.toBits(permissions);
+        if (bits == null) {
+            // 可能是新增的权限，重新加载目录后再试一次
+            markStale();
+            version = currentVersion();
+            bits = version.toBits(permissions);
+            if (bits == null) {
+                return null;
+            }
+        }
+        return new CompactPermissions(version.id(),
+                Base64.getUrlEncoder().withoutPadding().encodeToString(bits.toByteArray()));
+    }
+
+    /**
+     * 将位图解码为权限列表
+     *
+     * @throws IllegalArgumentException 目录版本未知或位图超出目录范围
+     */
+    public List<String> decode(String versionId, String encodedBits) {
+        Version version = versions.get(versionId);
+        if (version == null) {
+            // 重启后首次解码时目录尚未加载
+            currentVersion();
+            version = versions.get(versionId);
+        }
+        if (version == null && forceReload()) {
+            // 其他节点修改权限后签发的token，本节点没有收到失效通知
+            version = versions.get(versionId);
+        }
+        if (version == null) {
+            throw new IllegalArgumentException("Unknown permission catalog version: " + versionId);
+        }
+        return version.fromBits(BitSet.valueOf(Base64.getUrlDecoder().decode(encodedBits)));
+    }
+
+    /**
+     * 标记目录已过期，下次编码时重新加载
+     */
+    public void markStale() {
+        stale = true;
+    }
+
+    /**
+     * 不论是否过期都重新加载目录，按最小间隔限流
+     *
+     * @return 是否执行了重新加载
+     */
+    private boolean forceReload() {
+        synchronized (this) {
+            long now = System.nanoTime();
+            if (lastForcedReload != 0 && now - lastForcedReload < unknownVersionReloadInterval.toNanos()) {
+                return false;
+            }
+            lastForcedReload = now;
+            stale = true;
+        }
+        reload();
+        return true;
+    }
+
+    private Version currentVersion() {
+        Version version = current;
+        if (version == null || stale) {
+            version = reload();
+        }
+        return version;
+    }
+
+    private synchronized Version reload() {
+        if (current != null && !stale) {
+            return current;
+        }
+        stale = false;
+        List<String> codes = List.copyOf(permissionRepository.findCatalogCodes());
+        String id = versionId(codes);
+        Version version = versions.get(id);
+        if (version == null) {
+            version = new Version(id, codes);
+            versions.put(id, version);
+            versionOrder.addLast(id);
+            while (versionOrder.size() > retainedVersions) {
+                versions.remove(versionOrder.removeFirst());
+            }
+            log.info("Permission catalog version {} loaded with {} permissions", id, codes.size());
+        }
+        current = version;
+        return version;
+    }
+
+    private static String versionId(List<String> codes) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            byte[] digest = messageDigest.digest(String.join("\n", codes).getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, VERSION_BYTES));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * 编码后的权限
+     *
+     * @param version 目录版本
+     * @param bits    Base64URL编码的位图
+     */
+    public record CompactPermissions(String version, String bits) {
+    }
+
+    /**
+     * 不可变的目录版本
+     */
+    private static final class Version {
+        private final String id;
+        private final List<String> codes;
+        private final Map<String, Integer> index;
+
+        private Version(String id, List<String> codes) {
+            this.id = id;
+            this.codes = codes;
+            this.index = new HashMap<>();
+            for (int i = 0; i < codes.size(); i++) {
+                index.putIfAbsent(codes.get(i), i);
+            }
+        }
+
+        private String id() {
+            return id;
+        }
+
+        private BitSet toBits(Collection<String> permissions) {
+            BitSet bits = new BitSet(codes.size());
+            for (String permission : permissions) {
+                Integer position = index.get(permission);
+                if (position == null) {
+                    return null;
+                }
+                bits.set(position);
+            }
+            return bits;
+        }
+
+        private List<String> fromBits(BitSet bits) {
+            if (bits.length() > codes.size()) {
+                throw new IllegalArgumentException("Permission bitset exceeds catalog version " + id);
+            }
+            List<String> permissions = new ArrayList<>(bits.cardinality());
+            for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+                permissions.add(codes.get(i));
+            }
+            return List.copyOf(permissions);
+        }
+    }
+}
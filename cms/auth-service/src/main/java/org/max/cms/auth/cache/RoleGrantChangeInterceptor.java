@@ -0,0 +1,154 @@
+package org.max.cms.auth.cache;
+
+import com.baomidou.mybatisplus.core.metadata.TableInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import lombok.RequiredArgsConstructor;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.scripting.defaults.RawSqlSource;
+import org.apache.ibatis.scripting.xmltags.ChooseSqlNode;
+import org.apache.ibatis.scripting.xmltags.DynamicSqlSource;
+import org.apache.ibatis.scripting.xmltags.MixedSqlNode;
+import org.apache.ibatis.scripting.xmltags.SqlNode;
+import org.apache.ibatis.scripting.xmltags.StaticTextSqlNode;
+import org.apache.ibatis.scripting.xmltags.TextSqlNode;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * 角色授权变更拦截器
+ * 任何Mapper（包括XML和注解中的原生SQL）写入user_roles、role_permissions、roles、permissions后，
+ * 使角色权限缓存和权限目录失效。每条语句只在首次执行时识别一次：所属Mapper的实体表是授权表，
+ * 或语句文本（动态SQL取XML中的原始文本）写入授权表。
+ * 在事务中执行时于提交后失效，避免其他线程在提交前重新加载到旧数据；回滚的修改不触发失效。
+ * 不经过MyBatis的修改（手工执行SQL、其他节点的写入）由RolePermissionCache的过期时间兜底。
+ */
+@Component
+@RequiredArgsConstructor
+@Intercepts({
+    @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class})
+})
+public class RoleGrantChangeInterceptor implements Interceptor {
+
+    private static final Set<String> ROLE_GRANT_TABLES = Set.of("user_roles", "role_permissions", "roles", "permissions");
+
+    private static final Pattern ROLE_GRANT_WRITE = Pattern.compile(
+            "\\b(insert\\s+into|update|delete\\s+from|merge\\s+into|truncate(\\s+table)?)\\s+(\\w+\\.)?"
+                    + "(user_roles|role_permissions|roles|permissions)\\b", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * 按语句ID缓存的识别结果
+     */
+    private final Map<String, Boolean> roleGrantStatements = new ConcurrentHashMap<>();
+
+    /**
+     * 延迟获取，避免与SqlSessionFactory形成循环依赖
+     */
+    private final ObjectProvider<RolePermissionCache> rolePermissionCache;
+    private final ObjectProvider<PermissionCatalog> permissionCatalog;
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+        MappedStatement ms = (MappedStatement) invocation.getArgs()[0];
+        Boolean roleGrant = roleGrantStatements.get(ms.getId());
+        if (roleGrant == null) {
+            roleGrant = isRoleGrantStatement(ms, invocation.getArgs()[1]);
+            roleGrantStatements.put(ms.getId(), roleGrant);
+        }
+        if (roleGrant) {
+            invalidate();
+        }
+        return result;
+    }
+
+    private void invalidate() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidateNow();
+            return;
+        }
+        // 同一事务内多次写入只注册一次
+        if (TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidateNow();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(RoleGrantChangeInterceptor.this);
+            }
+        });
+    }
+
+    private void invalidateNow() {
+        rolePermissionCache.getObject().invalidateAll();
+        permissionCatalog.getObject().markStale();
+    }
+
+    private boolean isRoleGrantStatement(MappedStatement ms, Object parameter) {
+        String namespace = ms.getId().substring(0, ms.getId().lastIndexOf('.'));
+        for (TableInfo tableInfo : TableInfoHelper.getTableInfos()) {
+            if (namespace.equals(tableInfo.getCurrentNamespace())
+                    && ROLE_GRANT_TABLES.contains(tableInfo.getTableName().toLowerCase())) {
+                return true;
+            }
+        }
+        return ROLE_GRANT_WRITE.matcher(sqlText(ms.getSqlSource(), parameter)).find();
+    }
+
+    /**
+     * 语句的SQL文本：静态SQL与参数无关；动态SQL拼接各节点的原始文本，覆盖所有分支；
+     * 其他类型（如SQL Provider）取首次执行时生成的SQL
+     */
+    private static String sqlText(SqlSource sqlSource, Object parameter) {
+        if (sqlSource instanceof DynamicSqlSource) {
+            StringBuilder sql = new StringBuilder();
+            appendText((SqlNode) SystemMetaObject.forObject(sqlSource).getValue("rootSqlNode"), sql);
+            return sql.toString();
+        }
+        if (sqlSource instanceof StaticSqlSource || sqlSource instanceof RawSqlSource) {
+            return sqlSource.getBoundSql(null).getSql();
+        }
+        return sqlSource.getBoundSql(parameter).getSql();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void appendText(SqlNode node, StringBuilder sql) {
+        if (node == null) {
+            return;
+        }
+        MetaObject metaObject = SystemMetaObject.forObject(node);
+        if (node instanceof StaticTextSqlNode || node instanceof TextSqlNode) {
+            sql.append(metaObject.getValue("text")).append(' ');
+        } else if (node instanceof MixedSqlNode) {
+            ((List<SqlNode>) metaObject.getValue("contents")).forEach(child -> appendText(child, sql));
+        } else if (node instanceof ChooseSqlNode) {
+            ((List<SqlNode>) metaObject.getValue("ifSqlNodes")).forEach(child -> appendText(child, sql));
+            appendText((SqlNode) metaObject.getValue("defaultSqlNode"), sql);
+        } else if (metaObject.hasGetter("contents")) {
+            // if、trim、where、set、foreach
+            appendText((SqlNode) metaObject.getValue("contents"), sql);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package org.max.cms.auth.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.max.cms.auth.dto.RolePermissionCode;
+import org.max.cms.auth.repository.UserRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 角色权限缓存
+ * 缓存每个角色解析后的权限编码，登录时只需查询用户及其角色。
+ * 本节点通过MyBatis写入user_roles、role_permissions、roles、permissions时整体失效（见RoleGrantChangeInterceptor）；
+ * 直接修改数据库或由其他节点写入时不会失效，撤销的权限最长在expire-after-write（默认10分钟）内仍然有效。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RolePermissionCache {
+
+    private final UserRepository userRepository;
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    @Value("${auth.role-permission-cache.expire-after-write:10m}")
+    private Duration expireAfterWrite;
+
+    private Cache<Long, List<String>> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, "auth.role-permissions");
+        }
+    }
+
+    /**
+     * 获取多个角色的权限编码并集
+     * 未命中的角色通过一次查询批量加载
+     */
+    public List<String> getPermissions(Collection<Long> roleIds) {
+        if (roleIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, List<String>> rolePermissions = cache.getAll(roleIds, this::load);
+        Set<String> permissions = new LinkedHashSet<>();
+        for (Long roleId : roleIds) {
+            permissions.addAll(rolePermissions.getOrDefault(roleId, List.of()));
+        }
+        return new ArrayList<>(permissions);
+    }
+
+    /**
+     * 使所有角色的权限缓存失效
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+        log.debug("Role permission cache invalidated");
+    }
+
+    private Map<Long, List<String>> load(Set<? extends Long> roleIds) {
+        Map<Long, List<String>> loaded = new HashMap<>();
+        for (Long roleId : roleIds) {
+            loaded.put(roleId, new ArrayList<>());
+        }
+        for (RolePermissionCode rolePermission : userRepository.findPermissionCodesByRoleIds(new ArrayList<>(roleIds))) {
+            loaded.get(rolePermission.getRoleId()).add(rolePermission.getCode());
+        }
+        loaded.replaceAll((roleId, codes) -> List.copyOf(codes));
+        return loaded;
+    }
+}
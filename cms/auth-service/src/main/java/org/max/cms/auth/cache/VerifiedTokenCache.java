@@ -0,0 +1,138 @@
+package org.max.cms.auth.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.max.cms.auth.dto.VerifiedToken;
+import org.max.cms.auth.util.JwtUtil;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 已验证token缓存
+ * 以token的SHA-256摘要为键，缓存验证结果和预构建的权限列表，
+ * 条目在token过期时自动失效，也可在注销时主动失效。
+ * 默认关闭，通过auth.token-cache.enabled开启。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class VerifiedTokenCache {
+
+    private final JwtUtil jwtUtil;
+    private final AuthorityRegistry authorityRegistry;
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    @Value("${auth.token-cache.enabled:false}")
+    private boolean enabled;
+
+    @Value("${auth.token-cache.maximum-size:10000}")
+    private long maximumSize;
+
+    private Cache<ByteBuffer, CachedToken> cache;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            log.info("Verified token cache disabled");
+            return;
+        }
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, "auth.verified-tokens");
+        }
+        log.info("Verified token cache enabled, maximum size: {}", maximumSize);
+    }
+
+    /**
+     * 获取已验证的token，缓存未命中时进行完整验证
+     * 签名无效或token已过期时抛出JwtException
+     */
+    public CachedToken verify(String token) {
+        if (cache == null) {
+            return load(token);
+        }
+        ByteBuffer key = digest(token);
+        CachedToken cached = cache.get(key, k -> load(token));
+        if (cached.token().isExpired()) {
+            cache.invalidate(key);
+            return load(token);
+        }
+        return cached;
+    }
+
+    /**
+     * 使指定token的缓存条目失效
+     */
+    public void invalidate(String token) {
+        if (cache != null) {
+            cache.invalidate(digest(token));
+        }
+    }
+
+    private CachedToken load(String token) {
+        VerifiedToken verifiedToken = jwtUtil.verify(token);
+        List<SimpleGrantedAuthority> authorities = authorityRegistry.resolve(
+                verifiedToken.getPermissionFingerprint(), verifiedToken.getPermissions());
+        return new CachedToken(verifiedToken, authorities);
+    }
+
+    private static ByteBuffer digest(String token) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(messageDigest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * 缓存的验证结果及其预构建的权限列表
+     */
+    public record CachedToken(VerifiedToken token, List<SimpleGrantedAuthority> authorities) {
+    }
+
+    /**
+     * 按token自身的exp声明计算条目存活时间
+     */
+    private static class TokenExpiry implements Expiry<ByteBuffer, CachedToken> {
+
+        @Override
+        public long expireAfterCreate(ByteBuffer key, CachedToken value, long currentTime) {
+            if (value.token().getExpiration() == null) {
+                return Long.MAX_VALUE;
+            }
+            long remainingMillis = value.token().getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, CachedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(ByteBuffer key, CachedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
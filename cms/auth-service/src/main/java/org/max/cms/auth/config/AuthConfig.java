@@ -2,8 +2,10 @@ package org.max.cms.auth.config;
 
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @Configuration
+@EnableScheduling
 @ComponentScan(basePackages = "org.max.cms.auth")
 public class AuthConfig {
 }
\ No newline at end of file
@@ -0,0 +1,103 @@
+package org.max.cms.auth.config;
+
+import org.max.cms.auth.util.LegacyPasswordEncoder;
+import org.max.cms.common.util.AuditContextTaskDecorator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 密码哈希配置类
+ * 配置多算法密码编码器、专用的哈希线程池和登录后续处理线程池
+ */
+@Configuration
+public class PasswordConfig {
+    
+    /**
+     * 配置密码编码器
+     * 新密码使用auth.password.algorithm指定的算法，存储格式为{id}hash；
+     * 无前缀的存量密码（裸BCrypt或明文）由LegacyPasswordEncoder校验
+     */
+    @Bean
+    @SuppressWarnings("deprecation")
+    public PasswordEncoder passwordEncoder(
+            @Value("${auth.password.algorithm:bcrypt}") String algorithm,
+            @Value("${auth.password.bcrypt-strength:10}") int bcryptStrength) {
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", new BCryptPasswordEncoder(bcryptStrength));
+        encoders.put("pbkdf2", Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        encoders.put("noop", NoOpPasswordEncoder.getInstance());
+        
+        DelegatingPasswordEncoder passwordEncoder = new DelegatingPasswordEncoder(algorithm, encoders);
+        // 明文存量密码按当前算法执行一次等强度的哈希，校验耗时与其他用户一致
+        passwordEncoder.setDefaultPasswordEncoderForMatches(new LegacyPasswordEncoder(encoders.get(algorithm)));
+        return passwordEncoder;
+    }
+    
+    /**
+     * 配置密码哈希执行器
+     * 哈希计算不占用Tomcat线程，队列满时直接拒绝，避免登录洪峰拖垮整个服务
+     */
+    @Bean("passwordHashExecutor")
+    public Executor passwordHashExecutor(
+            @Value("${auth.password.pool-size:4}") int poolSize,
+            @Value("${auth.password.queue-capacity:200}") int queueCapacity,
+            AuditContextTaskDecorator auditContextTaskDecorator) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        
+        // 哈希是CPU密集型任务，固定线程数
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        
+        // 队列容量
+        executor.setQueueCapacity(queueCapacity);
+        
+        // 线程名前缀
+        executor.setThreadNamePrefix("password-hash-");
+        
+        // 拒绝策略：抛出异常，由登录流程返回系统繁忙
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        
+        // 传递链路追踪ID和用户身份
+        executor.setTaskDecorator(auditContextTaskDecorator);
+        
+        executor.initialize();
+        return executor;
+    }
+    
+    /**
+     * 配置登录后续处理执行器
+     * 校验通过后的令牌签发、权限解析等在此完成，不占用哈希线程；队列满时直接拒绝，由登录流程返回系统繁忙
+     */
+    @Bean("loginTaskExecutor")
+    public Executor loginTaskExecutor(
+            @Value("${auth.login.pool-size:8}") int poolSize,
+            @Value("${auth.login.queue-capacity:200}") int queueCapacity,
+            AuditContextTaskDecorator auditContextTaskDecorator) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("login-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.setTaskDecorator(auditContextTaskDecorator);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -4,11 +4,10 @@ import lombok.RequiredArgsConstructor;
 import org.max.cms.auth.filter.JwtAuthenticationFilter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
@@ -33,7 +32,14 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers(securityPathsConfig.getExcludePathsArray()).permitAll()
+                        .requestMatchers(securityPathsConfig.getExcludeRequestMatcher()).permitAll()
+                        // 审计日志查询与导出需要对应权限。AuditLogController位于不依赖Spring Security的common-service，
+                        // 且未启用方法级安全，接口权限统一在此配置
+                        .requestMatchers(HttpMethod.GET, "/api/audit-logs/export").hasAuthority("AUDIT_LOG_EXPORT")
+                        .requestMatchers("/api/audit-logs", "/api/audit-logs/**").hasAuthority("AUDIT_LOG_READ")
+                        // /actuator/health和/actuator/info在排除路径中公开，其余监控端点（指标、SQL诊断及其重置、
+                        // 按组件的健康检查）仅对系统管理员开放
+                        .requestMatchers("/actuator", "/actuator/**").hasAuthority("SYSTEM_MANAGEMENT")
                         .anyRequest().authenticated()
                 )
                 .exceptionHandling(exceptions -> exceptions
@@ -52,11 +58,6 @@ public class SecurityConfig {
                 .build();
     }
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
-
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
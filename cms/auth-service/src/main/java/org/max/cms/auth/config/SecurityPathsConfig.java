@@ -1,9 +1,14 @@
 package org.max.cms.auth.config;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.max.cms.auth.util.ExcludePathMatcher;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 
 import jakarta.annotation.PostConstruct;
 import java.util.List;
@@ -23,11 +28,26 @@ public class SecurityPathsConfig {
      */
     private List<String> excludePaths;
     
+    /**
+     * 由excludePaths编译而来的匹配器，JWT过滤器和Spring Security共用
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private ExcludePathMatcher excludePathMatcher = ExcludePathMatcher.compile(null);
+    
     @PostConstruct
     public void init() {
+        excludePathMatcher = ExcludePathMatcher.compile(excludePaths);
         log.info("Security exclude paths configured: {}", excludePaths);
     }
     
+    /**
+     * 获取不需要验证的请求匹配器（用于Spring Security配置）
+     */
+    public RequestMatcher getExcludeRequestMatcher() {
+        return request -> shouldExclude(request.getServletPath());
+    }
+    
     /**
      * 获取不需要验证的路径数组（用于Spring Security配置）
      */
@@ -37,35 +57,9 @@ public class SecurityPathsConfig {
     
     /**
      * 检查指定路径是否应该被排除验证
+     * 使用启动时编译的匹配器，查找开销与路径长度成正比且不分配对象
      */
     public boolean shouldExclude(String path) {
-        if (excludePaths == null || path == null) {
-            log.debug("Exclude paths or path is null - excludePaths: {}, path: {}", excludePaths, path);
-            return false;
-        }
-        
-        log.debug("Checking path '{}' against exclude paths: {}", path, excludePaths);
-        
-        boolean result = excludePaths.stream().anyMatch(excludePath -> {
-            // 处理通配符匹配
-            if (excludePath.endsWith("/**")) {
-                String prefix = excludePath.substring(0, excludePath.length() - 3);
-                boolean matches = path.startsWith(prefix);
-                log.debug("Wildcard /** match: {} vs {} -> {}", path, excludePath, matches);
-                return matches;
-            } else if (excludePath.endsWith("/*")) {
-                String prefix = excludePath.substring(0, excludePath.length() - 2);
-                boolean matches = path.startsWith(prefix) && !path.substring(prefix.length()).contains("/");
-                log.debug("Wildcard /* match: {} vs {} -> {}", path, excludePath, matches);
-                return matches;
-            } else {
-                boolean matches = path.equals(excludePath);
-                log.debug("Exact match: {} vs {} -> {}", path, excludePath, matches);
-                return matches;
-            }
-        });
-        
-        log.debug("Final result for path '{}': {}", path, result);
-        return result;
+        return excludePathMatcher.matches(path);
     }
 }
\ No newline at end of file
@@ -5,9 +5,18 @@ import org.max.cms.auth.dto.ApiResponse;
 import org.max.cms.auth.dto.LoginRequest;
 import org.max.cms.auth.dto.LoginResponse;
 import org.max.cms.auth.service.AuthService;
+import org.max.cms.auth.service.impl.LoginRateLimiter;
+import org.max.cms.common.util.IpUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -16,14 +25,27 @@ import jakarta.validation.Valid;
 public class AuthController {
 
     private final AuthService authService;
+    private final LoginRateLimiter loginRateLimiter;
 
     @PostMapping("/login")
-    public ApiResponse<LoginResponse> login(@Valid @RequestBody LoginRequest loginRequest) {
+    public CompletableFuture<ResponseEntity<ApiResponse<LoginResponse>>> login(
+            @Valid @RequestBody LoginRequest loginRequest, HttpServletRequest request) {
+        // 限流检查在访问数据库之前完成
+        LoginRateLimiter.Decision decision =
+                loginRateLimiter.tryAcquire(loginRequest.getUsername(), IpUtils.getClientIpAddress(request));
+        if (!decision.allowed()) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, Long.toString(decision.retryAfterSeconds()))
+                    .body(ApiResponse.error("登录尝试过于频繁，请稍后重试")));
+        }
         try {
-            LoginResponse response = authService.login(loginRequest);
-            return ApiResponse.success(response);
+            // 密码哈希在专用线程池完成，期间释放Tomcat线程
+            return authService.login(loginRequest)
+                    .thenApply(ApiResponse::success)
+                    .exceptionally(e -> ApiResponse.error(errorMessage(e)))
+                    .thenApply(ResponseEntity::ok);
         } catch (Exception e) {
-            return ApiResponse.error(e.getMessage());
+            return CompletableFuture.completedFuture(ResponseEntity.ok(ApiResponse.error(e.getMessage())));
         }
     }
 
@@ -52,4 +74,12 @@ public class AuthController {
             return ApiResponse.error(e.getMessage());
         }
     }
+
+    private static String errorMessage(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof RejectedExecutionException) {
+            return "系统繁忙，请稍后重试";
+        }
+        return cause.getMessage();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package org.max.cms.auth.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 待写入的最后登录信息
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LastLogin {
+    
+    private Long userId;
+    private LocalDateTime loginTime;
+    private String loginIp;
+}
@@ -0,0 +1,13 @@
+package org.max.cms.auth.dto;
+
+import lombok.Data;
+
+/**
+ * 角色与权限编码的对应关系
+ */
+@Data
+public class RolePermissionCode {
+    
+    private Long roleId;
+    private String code;
+}
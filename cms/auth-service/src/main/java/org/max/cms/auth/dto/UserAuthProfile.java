@@ -0,0 +1,33 @@
+package org.max.cms.auth.dto;
+
+import lombok.Data;
+import org.max.cms.auth.entity.Role;
+import org.max.cms.auth.entity.User;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 登录所需的用户信息
+ * 用户及其启用的角色由一次联表查询得到
+ */
+@Data
+public class UserAuthProfile {
+    
+    private User user;
+    private List<Role> roles = new ArrayList<>();
+    
+    /**
+     * 角色编码列表
+     */
+    public List<String> getRoleCodes() {
+        return roles.stream().map(Role::getCode).distinct().toList();
+    }
+    
+    /**
+     * 角色ID列表
+     */
+    public List<Long> getRoleIds() {
+        return roles.stream().map(Role::getId).distinct().toList();
+    }
+}
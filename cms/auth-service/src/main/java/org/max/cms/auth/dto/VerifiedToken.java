@@ -0,0 +1,33 @@
+package org.max.cms.auth.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 已验证的JWT
+ * 签名和有效期只校验一次，之后通过该对象读取所有声明
+ */
+@Getter
+@Builder
+@ToString
+public class VerifiedToken {
+
+    private final String tokenId;
+    private final String subject;
+    private final Date expiration;
+    private final Long userId;
+    private final List<String> roles;
+    private final List<String> permissions;
+    private final String permissionFingerprint;
+
+    /**
+     * 检查token是否已过期
+     */
+    public boolean isExpired() {
+        return expiration != null && expiration.getTime() <= System.currentTimeMillis();
+    }
+}
@@ -6,8 +6,11 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.max.cms.auth.cache.VerifiedTokenCache;
+import org.max.cms.auth.cache.VerifiedTokenCache.CachedToken;
 import org.max.cms.auth.config.SecurityPathsConfig;
-import org.max.cms.auth.util.JwtUtil;
+import org.max.cms.auth.service.TokenRevocationStore;
+import org.max.cms.common.util.AuditContextHolder;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -16,17 +19,16 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtUtil jwtUtil;
+    private final VerifiedTokenCache verifiedTokenCache;
     private final SecurityPathsConfig securityPathsConfig;
+    private final TokenRevocationStore tokenRevocationStore;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -48,33 +50,36 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         final String authorizationHeader = request.getHeader("Authorization");
         
-        String username = null;
-        String jwt = null;
+        CachedToken verifiedToken = null;
         
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
+            String jwt = authorizationHeader.substring(7);
             try {
-                username = jwtUtil.extractUsername(jwt);
+                // 一次解析完成签名校验、过期校验和声明提取，开启缓存时直接复用已验证结果
+                verifiedToken = verifiedTokenCache.verify(jwt);
+                if (tokenRevocationStore.isRevoked(verifiedToken.token().getTokenId())) {
+                    log.debug("Rejecting revoked token: {}", verifiedToken.token().getTokenId());
+                    verifiedToken = null;
+                }
             } catch (Exception e) {
-                log.error("JWT token extraction failed: {}", e.getMessage());
+                log.error("JWT token verification failed: {}", e.getMessage());
             }
         }
         
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            if (jwtUtil.validateToken(jwt, username)) {
-                // 从JWT token中提取权限信息
-                List<String> permissions = jwtUtil.extractPermissions(jwt);
-                List<SimpleGrantedAuthority> authorities = permissions.stream()
-                    .map(SimpleGrantedAuthority::new)
-                    .collect(Collectors.toList());
-                
-                UsernamePasswordAuthenticationToken authToken = 
-                    new UsernamePasswordAuthenticationToken(username, null, authorities);
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
-                
-                log.debug("Authentication successful for user: {}, authorities: {}", username, authorities);
-            }
+        if (verifiedToken != null && verifiedToken.token().getSubject() != null
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String username = verifiedToken.token().getSubject();
+            // 权限列表已随验证结果预构建
+            List<SimpleGrantedAuthority> authorities = verifiedToken.authorities();
+            
+            UsernamePasswordAuthenticationToken authToken = 
+                new UsernamePasswordAuthenticationToken(username, null, authorities);
+            authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authToken);
+            // 审计日志和异步任务通过审计上下文获取当前用户
+            AuditContextHolder.setCurrentUser(verifiedToken.token().getUserId(), username, null);
+            
+            log.debug("Authentication successful for user: {}, authorities: {}", username, authorities);
         }
         
         filterChain.doFilter(request, response);
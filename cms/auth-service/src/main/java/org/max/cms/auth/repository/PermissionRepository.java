@@ -0,0 +1,16 @@
+package org.max.cms.auth.repository;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+import org.max.cms.auth.entity.Permission;
+
+import java.util.List;
+
+@Mapper
+public interface PermissionRepository extends BaseMapper<Permission> {
+    
+    /**
+     * 按ID顺序查询所有未删除的权限编码，用于构建权限目录
+     */
+    List<String> findCatalogCodes();
+}
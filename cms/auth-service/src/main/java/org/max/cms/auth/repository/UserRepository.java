@@ -2,8 +2,13 @@ package org.max.cms.auth.repository;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.max.cms.auth.dto.LastLogin;
+import org.max.cms.auth.dto.RolePermissionCode;
+import org.max.cms.auth.dto.UserAuthProfile;
 import org.max.cms.auth.entity.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,4 +26,25 @@ public interface UserRepository extends BaseMapper<User> {
     List<String> findRolesByUsername(String username);
     
     List<String> findPermissionsByUsername(String username);
+    
+    /**
+     * 一次查询获取用户及其启用的角色
+     */
+    Optional<UserAuthProfile> findAuthProfileByUsername(String username);
+    
+    /**
+     * 查询指定角色拥有的权限编码
+     */
+    List<RolePermissionCode> findPermissionCodesByRoleIds(@Param("roleIds") Collection<Long> roleIds);
+    
+    /**
+     * 批量更新最后登录时间和IP
+     */
+    int batchUpdateLastLogin(@Param("logins") List<LastLogin> logins);
+    
+    /**
+     * 更新密码哈希，仅当当前哈希未被其他操作修改时生效
+     */
+    int updatePasswordHash(@Param("id") Long id, @Param("oldPassword") String oldPassword,
+                           @Param("newPassword") String newPassword);
 }
\ No newline at end of file
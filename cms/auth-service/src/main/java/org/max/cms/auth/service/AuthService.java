@@ -3,9 +3,15 @@ package org.max.cms.auth.service;
 import org.max.cms.auth.dto.LoginRequest;
 import org.max.cms.auth.dto.LoginResponse;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface AuthService {
     
-    LoginResponse login(LoginRequest loginRequest);
+    /**
+     * 登录
+     * 密码校验在专用哈希线程池上异步完成
+     */
+    CompletableFuture<LoginResponse> login(LoginRequest loginRequest);
     
     void logout(String token);
     
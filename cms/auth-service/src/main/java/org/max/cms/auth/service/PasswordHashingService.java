@@ -0,0 +1,36 @@
+package org.max.cms.auth.service;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 密码哈希服务
+ * 哈希计算在专用线程池上执行，调用方不会被阻塞
+ */
+public interface PasswordHashingService {
+    
+    /**
+     * 校验密码
+     * 线程池已满时返回的Future以RejectedExecutionException完成
+     */
+    CompletableFuture<PasswordCheck> verify(String rawPassword, String encodedPassword);
+    
+    /**
+     * 用户不存在时，以当前算法的一个固定哈希执行同等开销的校验，结果总是不匹配
+     * 使不存在和存在的用户名具有相同的响应时间
+     */
+    CompletableFuture<PasswordCheck> verifyAbsent(String rawPassword);
+    
+    /**
+     * 使用当前算法哈希密码
+     */
+    CompletableFuture<String> encode(String rawPassword);
+    
+    /**
+     * 密码校验结果
+     *
+     * @param matches      密码是否正确
+     * @param needsRehash  存储的哈希是否需要升级为当前算法或强度
+     */
+    record PasswordCheck(boolean matches, boolean needsRehash) {
+    }
+}
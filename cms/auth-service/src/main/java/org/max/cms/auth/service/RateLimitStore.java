@@ -0,0 +1,23 @@
+package org.max.cms.auth.service;
+
+/**
+ * 限流令牌桶存储
+ * 内存实现供单节点使用，Redis实现供多节点共享限流状态
+ */
+public interface RateLimitStore {
+    
+    /**
+     * 尝试从指定令牌桶获取一个令牌
+     *
+     * @param key            令牌桶标识
+     * @param capacity       令牌桶容量（允许的突发次数）
+     * @param intervalMillis 补充一个令牌的间隔
+     * @return 获取成功返回0，被限流时返回距离下一个令牌可用的毫秒数
+     */
+    long tryAcquire(String key, int capacity, long intervalMillis);
+    
+    /**
+     * 当前跟踪的令牌桶数量，无法统计时返回-1
+     */
+    long size();
+}
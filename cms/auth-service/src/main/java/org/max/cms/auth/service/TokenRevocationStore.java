@@ -0,0 +1,23 @@
+package org.max.cms.auth.service;
+
+/**
+ * token吊销存储
+ * 以jti声明为键记录已吊销的token，记录保留到token自身过期为止。
+ * isRevoked在每个请求上调用，实现必须在本地内存中完成判断，不能访问数据库或网络。
+ */
+public interface TokenRevocationStore {
+    
+    /**
+     * 吊销token，同一token的并发吊销中只有一次返回true
+     *
+     * @param tokenId   token的jti声明
+     * @param expiresAt token过期时间（毫秒时间戳），之后记录可被清理
+     * @return 本次调用吊销了该token；已被吊销时返回false，已过期的token无需记录，返回true
+     */
+    boolean revoke(String tokenId, long expiresAt);
+    
+    /**
+     * 检查token是否已被吊销
+     */
+    boolean isRevoked(String tokenId);
+}
@@ -2,19 +2,29 @@ package org.max.cms.auth.service.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.max.cms.auth.cache.RolePermissionCache;
+import org.max.cms.auth.cache.VerifiedTokenCache;
+import org.max.cms.auth.dto.LastLogin;
 import org.max.cms.auth.dto.LoginRequest;
 import org.max.cms.auth.dto.LoginResponse;
+import org.max.cms.auth.dto.UserAuthProfile;
+import org.max.cms.auth.dto.VerifiedToken;
 import org.max.cms.auth.entity.User;
 import org.max.cms.auth.repository.UserRepository;
 import org.max.cms.auth.service.AuthService;
+import org.max.cms.auth.service.PasswordHashingService;
+import org.max.cms.auth.service.TokenRevocationStore;
 import org.max.cms.auth.util.JwtUtil;
+import org.max.cms.common.util.IpUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @Slf4j
 @Service
@@ -23,43 +33,69 @@ public class AuthServiceImpl implements AuthService {
 
     private final UserRepository userRepository;
     private final JwtUtil jwtUtil;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenRevocationStore tokenRevocationStore;
+    private final RolePermissionCache rolePermissionCache;
+    private final LastLoginRecorder lastLoginRecorder;
+    private final PasswordHashingService passwordHashingService;
+
+    /**
+     * 密码校验之后的处理在此执行，哈希线程只做哈希
+     */
+    @Qualifier("loginTaskExecutor")
+    private final Executor loginTaskExecutor;
 
     @Override
-    public LoginResponse login(LoginRequest loginRequest) {
+    public CompletableFuture<LoginResponse> login(LoginRequest loginRequest) {
         log.info("User login attempt: {}", loginRequest.getUsername());
         
-        // 查找用户
-        User user = userRepository.findByUsername(loginRequest.getUsername())
-                .orElseThrow(() -> new RuntimeException("用户名或密码错误"));
-
-        // 验证密码（支持明文和加密两种方式）
-        if (!loginRequest.getPassword().equals(user.getPassword())) {
-            throw new RuntimeException("用户名或密码错误");
+        // 一次查询获取用户及其角色
+        UserAuthProfile profile = userRepository.findAuthProfileByUsername(loginRequest.getUsername()).orElse(null);
+        if (profile == null) {
+            // 用户不存在时同样执行一次哈希校验，避免通过响应时间探测用户名
+            return passwordHashingService.verifyAbsent(loginRequest.getPassword())
+                    .thenApply(check -> {
+                        throw new RuntimeException("用户名或密码错误");
+                    });
         }
+        User user = profile.getUser();
+        
+        // 请求上下文只在当前线程可用，进入哈希线程池前先获取客户端IP
+        String clientIp = IpUtils.getClientIpAddress();
+
+        // 验证密码（支持多种哈希算法以及存量的明文和裸BCrypt密码）
+        return passwordHashingService.verify(loginRequest.getPassword(), user.getPassword())
+                .thenApplyAsync(check -> {
+                    if (!check.matches()) {
+                        throw new RuntimeException("用户名或密码错误");
+                    }
+                    if (check.needsRehash()) {
+                        rehash(user, loginRequest.getPassword());
+                    }
+                    return completeLogin(profile, clientIp);
+                }, loginTaskExecutor);
+    }
+
+    private LoginResponse completeLogin(UserAuthProfile profile, String clientIp) {
+        User user = profile.getUser();
 
         // 检查用户状态
         if (!user.getEnabled()) {
             throw new RuntimeException("用户已被禁用");
         }
 
-        // 更新最后登录时间
-        user.setLastLoginTime(LocalDateTime.now());
-        userRepository.updateById(user);
+        // 更新最后登录时间（由后台任务批量写入）
+        lastLoginRecorder.record(new LastLogin(user.getId(), LocalDateTime.now(), clientIp));
 
-        // 查询用户角色和权限
-        List<String> roles = userRepository.findRolesByUsername(user.getUsername());
-        List<String> permissions = userRepository.findPermissionsByUsername(user.getUsername());
+        // 角色权限从缓存解析
+        List<String> roles = profile.getRoleCodes();
+        List<String> permissions = rolePermissionCache.getPermissions(profile.getRoleIds());
 
         // 生成JWT token
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("userId", user.getId());
-        claims.put("email", user.getEmail());
-        claims.put("roles", roles);
-        claims.put("permissions", permissions);
-        String token = jwtUtil.generateToken(user.getUsername(), claims);
+        String token = jwtUtil.generateToken(user.getUsername(), buildClaims(user, roles, permissions));
 
         log.info("User login successful: {}, roles: {}, permissions: {}", 
-                loginRequest.getUsername(), roles, permissions);
+                user.getUsername(), roles, permissions);
 
         return LoginResponse.builder()
                 .token(token)
@@ -73,29 +109,72 @@ public class AuthServiceImpl implements AuthService {
                 .build();
     }
 
+    /**
+     * 登录成功后将旧格式或旧强度的密码哈希升级为当前算法
+     * 异步执行，不影响本次登录的响应时间
+     */
+    private void rehash(User user, String rawPassword) {
+        passwordHashingService.encode(rawPassword)
+                .thenAccept(newPassword -> {
+                    if (userRepository.updatePasswordHash(user.getId(), user.getPassword(), newPassword) > 0) {
+                        log.info("Password hash upgraded for user: {}", user.getUsername());
+                    }
+                })
+                .exceptionally(e -> {
+                    log.warn("Password hash upgrade failed for user {}: {}", user.getUsername(), e.getMessage());
+                    return null;
+                });
+    }
+
     @Override
     public void logout(String token) {
-        // TODO: 实现token黑名单机制
-        log.info("User logout");
+        VerifiedToken verifiedToken = jwtUtil.verify(token);
+        revoke(verifiedToken);
+        verifiedTokenCache.invalidate(token);
+        log.info("User logout: {}", verifiedToken.getSubject());
     }
 
     @Override
     public String refreshToken(String token) {
-        String username = jwtUtil.extractUsername(token);
+        VerifiedToken verifiedToken = jwtUtil.verify(token);
+        // 先原子地吊销旧token，同一token的并发刷新只有一个能继续
+        if (tokenRevocationStore.isRevoked(verifiedToken.getTokenId()) || !revoke(verifiedToken)) {
+            throw new RuntimeException("token已失效");
+        }
+        verifiedTokenCache.invalidate(token);
+        String username = verifiedToken.getSubject();
         
         // 重新查询用户信息以获取最新的角色和权限
-        User user = userRepository.findByUsername(username)
+        UserAuthProfile profile = userRepository.findAuthProfileByUsername(username)
                 .orElseThrow(() -> new RuntimeException("用户不存在"));
+        User user = profile.getUser();
         
-        List<String> roles = userRepository.findRolesByUsername(username);
-        List<String> permissions = userRepository.findPermissionsByUsername(username);
+        // 已禁用的用户不再携带任何角色权限
+        boolean active = Boolean.TRUE.equals(user.getEnabled());
+        List<String> roles = active ? profile.getRoleCodes() : List.of();
+        List<String> permissions = active ? rolePermissionCache.getPermissions(profile.getRoleIds()) : List.of();
         
+        return jwtUtil.generateToken(username, buildClaims(user, roles, permissions));
+    }
+
+    private Map<String, Object> buildClaims(User user, List<String> roles, List<String> permissions) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", user.getId());
         claims.put("email", user.getEmail());
         claims.put("roles", roles);
-        claims.put("permissions", permissions);
-        
-        return jwtUtil.generateToken(username, claims);
+        jwtUtil.putPermissions(claims, permissions);
+        return claims;
+    }
+
+    /**
+     * @return 本次调用吊销了该token；没有jti的token无法吊销，视为成功
+     */
+    private boolean revoke(VerifiedToken verifiedToken) {
+        if (verifiedToken.getTokenId() == null) {
+            // 早期签发的token没有jti，只能等待其自然过期
+            log.warn("Token of user {} has no jti and cannot be revoked", verifiedToken.getSubject());
+            return true;
+        }
+        return tokenRevocationStore.revoke(verifiedToken.getTokenId(), verifiedToken.getExpiration().getTime());
     }
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package org.max.cms.auth.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.max.cms.auth.service.RateLimitStore;
+import org.max.cms.auth.util.TokenBucket;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * 进程内限流存储
+ * 令牌桶保存在有界缓存中，长时间未访问（此时令牌桶早已回满）的条目被淘汰
+ */
+@Service
+@ConditionalOnProperty(name = "auth.rate-limit.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryRateLimitStore implements RateLimitStore {
+    
+    @Value("${auth.rate-limit.maximum-keys:100000}")
+    private long maximumKeys;
+    
+    @Value("${auth.rate-limit.idle-timeout:1h}")
+    private Duration idleTimeout;
+    
+    private Cache<String, TokenBucket> buckets;
+    
+    @PostConstruct
+    public void init() {
+        buckets = Caffeine.newBuilder()
+                .maximumSize(maximumKeys)
+                .expireAfterAccess(idleTimeout)
+                .build();
+    }
+    
+    @Override
+    public long tryAcquire(String key, int capacity, long intervalMillis) {
+        return buckets.get(key, k -> new TokenBucket(capacity, intervalMillis))
+                .tryAcquire(System.currentTimeMillis());
+    }
+    
+    @Override
+    public long size() {
+        return buckets.estimatedSize();
+    }
+}
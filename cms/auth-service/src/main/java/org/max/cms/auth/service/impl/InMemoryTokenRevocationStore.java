@@ -0,0 +1,61 @@
+package org.max.cms.auth.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.max.cms.auth.service.TokenRevocationStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 进程内token吊销存储
+ * 单节点部署和测试使用；Redis存储也以它作为本地镜像。
+ * 过期记录在吊销时按固定间隔批量清理，查询路径只有一次哈希查找。
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "auth.revocation.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryTokenRevocationStore implements TokenRevocationStore {
+    
+    private static final long PURGE_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    
+    /**
+     * jti -> token过期时间
+     */
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    
+    private final AtomicLong lastPurgeTime = new AtomicLong(System.currentTimeMillis());
+    
+    @Override
+    public boolean revoke(String tokenId, long expiresAt) {
+        long now = System.currentTimeMillis();
+        boolean revoked = expiresAt <= now || revokedTokens.putIfAbsent(tokenId, expiresAt) == null;
+        purgeExpired(now);
+        return revoked;
+    }
+    
+    @Override
+    public boolean isRevoked(String tokenId) {
+        return tokenId != null && revokedTokens.containsKey(tokenId);
+    }
+    
+    /**
+     * 当前记录的吊销数量
+     */
+    public int size() {
+        return revokedTokens.size();
+    }
+    
+    private void purgeExpired(long now) {
+        long last = lastPurgeTime.get();
+        if (now - last < PURGE_INTERVAL_MILLIS || !lastPurgeTime.compareAndSet(last, now)) {
+            return;
+        }
+        int before = revokedTokens.size();
+        revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+        log.debug("Purged {} expired token revocations", before - revokedTokens.size());
+    }
+}
@@ -0,0 +1,81 @@
+package org.max.cms.auth.service.impl;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.max.cms.auth.dto.LastLogin;
+import org.max.cms.auth.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 最后登录信息记录器
+ * 登录时只在内存中记录，由后台任务定期批量写入，避免登录路径上的同步UPDATE。
+ * 同一用户在一个周期内多次登录只保留最后一次。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LastLoginRecorder {
+    
+    private final UserRepository userRepository;
+    
+    @Value("${auth.last-login.batch-size:500}")
+    private int batchSize;
+    
+    private final Map<Long, LastLogin> pending = new ConcurrentHashMap<>();
+    
+    /**
+     * 记录一次登录
+     */
+    public void record(LastLogin lastLogin) {
+        pending.merge(lastLogin.getUserId(), lastLogin,
+                (previous, current) -> current.getLoginTime().isAfter(previous.getLoginTime()) ? current : previous);
+    }
+    
+    /**
+     * 批量写入待处理的登录信息
+     */
+    @Scheduled(fixedDelayString = "${auth.last-login.flush-interval:5000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<LastLogin> batch = new ArrayList<>(batchSize);
+        for (Long userId : pending.keySet()) {
+            LastLogin lastLogin = pending.remove(userId);
+            if (lastLogin != null) {
+                batch.add(lastLogin);
+            }
+            if (batch.size() >= batchSize) {
+                write(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+    
+    @PreDestroy
+    public void destroy() {
+        flush();
+    }
+    
+    private void write(List<LastLogin> batch) {
+        try {
+            int updated = userRepository.batchUpdateLastLogin(batch);
+            log.debug("Flushed last login of {} users", updated);
+        } catch (Exception e) {
+            // 写入失败时放回队列，等待下一周期重试，不覆盖更新的记录
+            log.error("Failed to flush last login of {} users", batch.size(), e);
+            batch.forEach(this::record);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package org.max.cms.auth.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.max.cms.auth.service.RateLimitStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * 登录限流器
+ * 分别按客户端IP和用户名限流，在访问数据库之前拒绝撞库流量。
+ * 指标auth.login.rate-limit按维度和结果区分，可通过actuator的metrics端点查看。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LoginRateLimiter {
+    
+    private static final String METRIC_NAME = "auth.login.rate-limit";
+    
+    private final RateLimitStore rateLimitStore;
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+    
+    @Value("${auth.rate-limit.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${auth.rate-limit.ip.capacity:20}")
+    private int ipCapacity;
+    
+    @Value("${auth.rate-limit.ip.refill-interval:3s}")
+    private Duration ipRefillInterval;
+    
+    @Value("${auth.rate-limit.username.capacity:5}")
+    private int usernameCapacity;
+    
+    @Value("${auth.rate-limit.username.refill-interval:1m}")
+    private Duration usernameRefillInterval;
+    
+    private Counter ipAllowed;
+    private Counter ipRejected;
+    private Counter usernameAllowed;
+    private Counter usernameRejected;
+    
+    @PostConstruct
+    public void init() {
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (meterRegistry == null) {
+            return;
+        }
+        ipAllowed = counter(meterRegistry, "ip", "allowed");
+        ipRejected = counter(meterRegistry, "ip", "rejected");
+        usernameAllowed = counter(meterRegistry, "username", "allowed");
+        usernameRejected = counter(meterRegistry, "username", "rejected");
+        Gauge.builder(METRIC_NAME + ".buckets", rateLimitStore, RateLimitStore::size)
+                .description("Number of tracked login rate limit buckets")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * 检查是否允许本次登录尝试
+     * 先检查IP，IP被限流时不消耗用户名令牌
+     */
+    public Decision tryAcquire(String username, String clientIp) {
+        if (!enabled) {
+            return Decision.ALLOWED;
+        }
+        if (clientIp != null) {
+            long waitMillis = rateLimitStore.tryAcquire("ip:" + clientIp, ipCapacity, ipRefillInterval.toMillis());
+            increment(waitMillis == 0 ? ipAllowed : ipRejected);
+            if (waitMillis > 0) {
+                log.warn("Login rate limit exceeded for ip: {}", clientIp);
+                return Decision.rejected(waitMillis);
+            }
+        }
+        if (username != null) {
+            // 用户名不区分大小写，避免通过大小写变化绕过限流
+            String key = "user:" + username.toLowerCase(Locale.ROOT);
+            long waitMillis = rateLimitStore.tryAcquire(key, usernameCapacity, usernameRefillInterval.toMillis());
+            increment(waitMillis == 0 ? usernameAllowed : usernameRejected);
+            if (waitMillis > 0) {
+                log.warn("Login rate limit exceeded for user: {}", username);
+                return Decision.rejected(waitMillis);
+            }
+        }
+        return Decision.ALLOWED;
+    }
+    
+    /**
+     * 限流结果，被限流时携带拒绝本次请求的令牌桶建议的重试等待时间（秒）
+     */
+    public record Decision(boolean allowed, long retryAfterSeconds) {
+        
+        static final Decision ALLOWED = new Decision(true, 0);
+        
+        static Decision rejected(long waitMillis) {
+            // 向上取整，避免客户端按建议时间重试时仍被拒绝
+            return new Decision(false, Math.max(1, (waitMillis + 999) / 1000));
+        }
+    }
+    
+    private static Counter counter(MeterRegistry meterRegistry, String dimension, String result) {
+        return Counter.builder(METRIC_NAME)
+                .tag("dimension", dimension)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+    
+    private static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+}
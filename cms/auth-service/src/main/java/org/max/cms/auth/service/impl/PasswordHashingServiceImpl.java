@@ -0,0 +1,105 @@
+package org.max.cms.auth.service.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.max.cms.auth.service.PasswordHashingService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * 密码哈希服务实现类
+ * 记录auth.password.hash耗时指标（按操作和算法区分），用于根据p99目标调整哈希强度
+ */
+@Slf4j
+@Service
+public class PasswordHashingServiceImpl implements PasswordHashingService {
+    
+    private static final String TIMER_NAME = "auth.password.hash";
+    
+    private final PasswordEncoder passwordEncoder;
+    private final Executor executor;
+    private final MeterRegistry meterRegistry;
+    
+    /**
+     * 按操作和算法缓存的计时器，避免每次哈希都经过注册表查找
+     */
+    private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+    
+    /**
+     * 用于不存在用户的固定哈希，按当前算法和强度生成，校验开销与真实用户一致
+     */
+    private final String absentUserHash;
+    
+    public PasswordHashingServiceImpl(PasswordEncoder passwordEncoder,
+                                      @Qualifier("passwordHashExecutor") Executor executor,
+                                      ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.passwordEncoder = passwordEncoder;
+        this.executor = executor;
+        this.meterRegistry = meterRegistryProvider.getIfAvailable();
+        this.absentUserHash = passwordEncoder.encode("absent-user-" + System.nanoTime());
+    }
+    
+    @Override
+    public CompletableFuture<PasswordCheck> verify(String rawPassword, String encodedPassword) {
+        return supply("verify", algorithmOf(encodedPassword), () -> {
+            boolean matches = passwordEncoder.matches(rawPassword, encodedPassword);
+            return new PasswordCheck(matches, matches && passwordEncoder.upgradeEncoding(encodedPassword));
+        });
+    }
+    
+    @Override
+    public CompletableFuture<PasswordCheck> verifyAbsent(String rawPassword) {
+        return supply("verify", "absent", () -> {
+            passwordEncoder.matches(rawPassword, absentUserHash);
+            return new PasswordCheck(false, false);
+        });
+    }
+    
+    @Override
+    public CompletableFuture<String> encode(String rawPassword) {
+        return supply("encode", "current", () -> passwordEncoder.encode(rawPassword));
+    }
+    
+    private <T> CompletableFuture<T> supply(String operation, String algorithm, Supplier<T> task) {
+        Supplier<T> timed = meterRegistry == null ? task : timer(operation, algorithm).wrap(task);
+        try {
+            return CompletableFuture.supplyAsync(timed, executor);
+        } catch (RuntimeException e) {
+            log.warn("Password hash executor rejected {} task: {}", operation, e.getMessage());
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+    
+    private Timer timer(String operation, String algorithm) {
+        return timers.computeIfAbsent(new TimerKey(operation, algorithm), key -> Timer.builder(TIMER_NAME)
+                .tag("operation", key.operation())
+                .tag("algorithm", key.algorithm())
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry));
+    }
+    
+    /**
+     * 从{id}前缀中解析算法名，无前缀的存量密码归为legacy
+     */
+    private static String algorithmOf(String encodedPassword) {
+        if (encodedPassword != null && encodedPassword.startsWith("{")) {
+            int end = encodedPassword.indexOf('}');
+            if (end > 1) {
+                return encodedPassword.substring(1, end);
+            }
+        }
+        return "legacy";
+    }
+    
+    private record TimerKey(String operation, String algorithm) {
+    }
+}
@@ -0,0 +1,51 @@
+package org.max.cms.auth.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.max.cms.auth.service.RateLimitStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * 基于Redis的限流存储
+ * 以Lua脚本原子执行GCRA算法，使用Redis服务器时间，所有节点共享同一令牌桶
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "auth.rate-limit.store", havingValue = "redis")
+public class RedisRateLimitStore implements RateLimitStore {
+    
+    private static final String KEY_PREFIX = "auth:rate-limit:";
+    
+    private static final RedisScript<Long> GCRA_SCRIPT = new DefaultRedisScript<>("""
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            local interval = tonumber(ARGV[1])
+            local burst = interval * (tonumber(ARGV[2]) - 1)
+            local tat = tonumber(redis.call('GET', KEYS[1]) or now)
+            if tat < now then tat = now end
+            if tat - now > burst then return tat - now - burst end
+            local next = tat + interval
+            redis.call('SET', KEYS[1], next, 'PX', next - now)
+            return 0
+            """, Long.class);
+    
+    private final StringRedisTemplate redisTemplate;
+    
+    @Override
+    public long tryAcquire(String key, int capacity, long intervalMillis) {
+        Long waitMillis = redisTemplate.execute(GCRA_SCRIPT, List.of(KEY_PREFIX + key),
+                Long.toString(intervalMillis), Integer.toString(capacity));
+        // 脚本无返回值时按限流处理
+        return waitMillis != null ? waitMillis : intervalMillis;
+    }
+    
+    @Override
+    public long size() {
+        return -1;
+    }
+}
@@ -0,0 +1,108 @@
+package org.max.cms.auth.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.max.cms.auth.service.TokenRevocationStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * 基于Redis的token吊销存储
+ * 吊销记录写入Redis（带TTL）并通过发布订阅同步到所有节点，
+ * 每个节点在本地内存中维护镜像，因此请求路径上的检查不产生网络往返。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "auth.revocation.store", havingValue = "redis")
+public class RedisTokenRevocationStore implements TokenRevocationStore, MessageListener {
+    
+    private static final String KEY_PREFIX = "auth:revoked:";
+    private static final String CHANNEL = "auth:revocations";
+    private static final char SEPARATOR = '|';
+    
+    private final StringRedisTemplate redisTemplate;
+    private final RedisConnectionFactory connectionFactory;
+    
+    private final InMemoryTokenRevocationStore localStore = new InMemoryTokenRevocationStore();
+    
+    private RedisMessageListenerContainer listenerContainer;
+    
+    @PostConstruct
+    public void init() {
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(connectionFactory);
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+        
+        // 订阅之后再加载已有记录，避免遗漏启动期间的吊销
+        ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(1000).build();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                String key = cursor.next();
+                String expiresAt = redisTemplate.opsForValue().get(key);
+                if (expiresAt != null) {
+                    localStore.revoke(key.substring(KEY_PREFIX.length()), Long.parseLong(expiresAt));
+                }
+            }
+        }
+        log.info("Loaded {} token revocations from Redis", localStore.size());
+    }
+    
+    @PreDestroy
+    public void destroy() throws Exception {
+        if (listenerContainer != null) {
+            listenerContainer.destroy();
+        }
+    }
+    
+    @Override
+    public boolean revoke(String tokenId, long expiresAt) {
+        long ttl = expiresAt - System.currentTimeMillis();
+        if (ttl <= 0) {
+            return true;
+        }
+        // SET NX保证多个节点并发吊销同一token时只有一个成功
+        boolean revoked = Boolean.TRUE.equals(redisTemplate.opsForValue()
+                .setIfAbsent(KEY_PREFIX + tokenId, Long.toString(expiresAt), Duration.ofMillis(ttl)));
+        localStore.revoke(tokenId, expiresAt);
+        if (revoked) {
+            redisTemplate.convertAndSend(CHANNEL, tokenId + SEPARATOR + expiresAt);
+        }
+        return revoked;
+    }
+    
+    @Override
+    public boolean isRevoked(String tokenId) {
+        return localStore.isRevoked(tokenId);
+    }
+    
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int index = body.lastIndexOf(SEPARATOR);
+        if (index <= 0) {
+            log.warn("Ignoring malformed token revocation message: {}", body);
+            return;
+        }
+        try {
+            localStore.revoke(body.substring(0, index), Long.parseLong(body.substring(index + 1)));
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed token revocation message: {}", body);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package org.max.cms.auth.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 预编译的排除路径匹配器
+ * 启动时将路径模式编译为不可变的字符前缀树，匹配时只遍历一次请求路径且不分配对象。
+ *
+ * 支持的模式：
+ * /a/b    精确匹配
+ * /a/*    匹配 /a 下的一级路径，如 /a/x
+ * /a/**   匹配 /a 本身及其下任意层级路径
+ */
+@Slf4j
+public final class ExcludePathMatcher {
+
+    private static final String ANY_PATH_SUFFIX = "/**";
+    private static final String SINGLE_SEGMENT_SUFFIX = "/*";
+
+    private final Node root;
+
+    private ExcludePathMatcher(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * 编译路径模式列表
+     */
+    public static ExcludePathMatcher compile(List<String> patterns) {
+        MutableNode root = new MutableNode();
+        if (patterns != null) {
+            for (String pattern : patterns) {
+                add(root, pattern);
+            }
+        }
+        return new ExcludePathMatcher(root.freeze());
+    }
+
+    private static void add(MutableNode root, String pattern) {
+        if (pattern == null || pattern.isEmpty()) {
+            return;
+        }
+        if (pattern.endsWith(ANY_PATH_SUFFIX)) {
+            root.descend(literal(pattern, ANY_PATH_SUFFIX)).anyPath = true;
+        } else if (pattern.endsWith(SINGLE_SEGMENT_SUFFIX)) {
+            root.descend(literal(pattern, SINGLE_SEGMENT_SUFFIX)).singleSegment = true;
+        } else {
+            if (pattern.indexOf('*') >= 0) {
+                log.warn("Wildcards are only supported at the end of exclude paths, matching literally: {}", pattern);
+            }
+            root.descend(pattern).exact = true;
+        }
+    }
+
+    private static String literal(String pattern, String suffix) {
+        String literal = pattern.substring(0, pattern.length() - suffix.length());
+        if (literal.indexOf('*') >= 0) {
+            log.warn("Wildcards are only supported at the end of exclude paths, matching prefix literally: {}", pattern);
+        }
+        return literal;
+    }
+
+    /**
+     * 检查路径是否匹配任一模式
+     */
+    public boolean matches(String path) {
+        if (path == null) {
+            return false;
+        }
+        int length = path.length();
+        Node node = root;
+        for (int i = 0; ; i++) {
+            if (node.anyPath && (i == length || path.charAt(i) == '/')) {
+                return true;
+            }
+            if (node.singleSegment && i < length && path.charAt(i) == '/' && isSingleSegment(path, i + 1)) {
+                return true;
+            }
+            if (i == length) {
+                return node.exact;
+            }
+            node = node.child(path.charAt(i));
+            if (node == null) {
+                return false;
+            }
+        }
+    }
+
+    private static boolean isSingleSegment(String path, int from) {
+        return from < path.length() && path.indexOf('/', from) < 0;
+    }
+
+    /**
+     * 不可变的前缀树节点，子节点按字符有序存放
+     */
+    private static final class Node {
+        private final char[] keys;
+        private final Node[] children;
+        private final boolean exact;
+        private final boolean singleSegment;
+        private final boolean anyPath;
+
+        private Node(char[] keys, Node[] children, boolean exact, boolean singleSegment, boolean anyPath) {
+            this.keys = keys;
+            this.children = children;
+            this.exact = exact;
+            this.singleSegment = singleSegment;
+            this.anyPath = anyPath;
+        }
+
+        private Node child(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            return index >= 0 ? children[index] : null;
+        }
+    }
+
+    /**
+     * 编译阶段使用的可变节点
+     */
+    private static final class MutableNode {
+        private final Map<Character, MutableNode> children = new TreeMap<>();
+        private boolean exact;
+        private boolean singleSegment;
+        private boolean anyPath;
+
+        private MutableNode descend(String literal) {
+            MutableNode node = this;
+            for (int i = 0; i < literal.length(); i++) {
+                node = node.children.computeIfAbsent(literal.charAt(i), c -> new MutableNode());
+            }
+            return node;
+        }
+
+        private Node freeze() {
+            char[] keys = new char[children.size()];
+            Node[] frozen = new Node[children.size()];
+            int i = 0;
+            for (Map.Entry<Character, MutableNode> entry : children.entrySet()) {
+                keys[i] = entry.getKey();
+                frozen[i] = entry.getValue().freeze();
+                i++;
+            }
+            return new Node(keys, frozen, exact, singleSegment, anyPath);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package org.max.cms.auth.util;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.SecretKey;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.KeyStore;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * JWT密钥管理器
+ * 启动时一次性派生签名密钥（来自jwt.secret或密钥库），并持有一个不可变、线程安全的JwtParser。
+ * 支持通过kid头进行密钥轮换：新密钥用于签发，旧密钥在退役前仍可用于验证。
+ */
+@Slf4j
+@Component
+public class JwtKeyManager {
+
+    /**
+     * HMAC-SHA256要求的最小密钥长度（字节）
+     */
+    private static final int MIN_SECRET_LENGTH = 32;
+
+    private final ResourceLoader resourceLoader;
+
+    @Value("${jwt.secret:}")
+    private String secret;
+
+    @Value("${jwt.key-id:default}")
+    private String keyId;
+
+    @Value("${jwt.key-store.location:}")
+    private String keyStoreLocation;
+
+    @Value("${jwt.key-store.password:}")
+    private String keyStorePassword;
+
+    @Value("${jwt.key-store.type:PKCS12}")
+    private String keyStoreType;
+
+    @Value("${jwt.key-store.active-alias:}")
+    private String activeAlias;
+
+    /**
+     * 当前密钥环快照，轮换时整体替换
+     */
+    private final AtomicReference<KeyRing> keyRing = new AtomicReference<>();
+
+    /**
+     * 不可变的解析器，通过kid动态解析密钥，因此轮换后无需重建
+     */
+    private final JwtParser parser;
+
+    public JwtKeyManager(ResourceLoader resourceLoader) {
+        this.resourceLoader = resourceLoader;
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new KeyRingResolver())
+                .build();
+    }
+
+    @PostConstruct
+    public void init() {
+        Map<String, SecretKey> keys = new LinkedHashMap<>();
+        String signingKeyId = null;
+
+        if (StringUtils.hasText(keyStoreLocation)) {
+            keys.putAll(loadKeyStore());
+            if (StringUtils.hasText(activeAlias)) {
+                if (!keys.containsKey(activeAlias)) {
+                    throw new IllegalStateException("JWT key store does not contain active alias: " + activeAlias);
+                }
+                signingKeyId = activeAlias;
+            }
+        }
+
+        if (StringUtils.hasText(secret) && secret.getBytes(StandardCharsets.UTF_8).length >= MIN_SECRET_LENGTH) {
+            keys.putIfAbsent(keyId, Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)));
+            if (signingKeyId == null) {
+                signingKeyId = keyId;
+            }
+        }
+
+        if (signingKeyId == null && !keys.isEmpty()) {
+            signingKeyId = keys.keySet().iterator().next();
+        }
+
+        if (signingKeyId == null) {
+            // 未配置有效密钥时仅生成一次随机密钥，重启后已签发的token将失效
+            log.warn("jwt.secret is empty or shorter than {} bytes, using a generated key for this process only",
+                    MIN_SECRET_LENGTH);
+            keys.put(keyId, Keys.secretKeyFor(SignatureAlgorithm.HS256));
+            signingKeyId = keyId;
+        }
+
+        keyRing.set(new KeyRing(keys, signingKeyId, signingKeyId));
+        log.info("JWT key manager initialized, signing key id: {}, verification key ids: {}",
+                signingKeyId, keys.keySet());
+    }
+
+    /**
+     * 获取线程安全的JWT解析器
+     */
+    public JwtParser getParser() {
+        return parser;
+    }
+
+    /**
+     * 获取当前用于签发的密钥
+     */
+    public SigningKey getSigningKey() {
+        KeyRing ring = keyRing.get();
+        return new SigningKey(ring.signingKeyId(), ring.keys().get(ring.signingKeyId()));
+    }
+
+    /**
+     * 轮换签名密钥
+     * 新密钥立即用于签发，原有密钥保留用于验证已签发的token
+     */
+    public synchronized void rotate(String newKeyId, SecretKey newKey) {
+        if (!StringUtils.hasText(newKeyId) || newKey == null) {
+            throw new IllegalArgumentException("Key id and key must not be empty");
+        }
+        KeyRing current = keyRing.get();
+        Map<String, SecretKey> keys = new LinkedHashMap<>(current.keys());
+        keys.put(newKeyId, newKey);
+        keyRing.set(new KeyRing(keys, newKeyId, current.legacyKeyId()));
+        log.info("JWT signing key rotated to: {}", newKeyId);
+    }
+
+    /**
+     * 退役验证密钥，使用该密钥签发的token将无法再通过验证
+     */
+    public synchronized void retire(String retiredKeyId) {
+        KeyRing current = keyRing.get();
+        if (retiredKeyId.equals(current.signingKeyId())) {
+            throw new IllegalArgumentException("Cannot retire the active signing key: " + retiredKeyId);
+        }
+        Map<String, SecretKey> keys = new LinkedHashMap<>(current.keys());
+        if (keys.remove(retiredKeyId) != null) {
+            keyRing.set(new KeyRing(keys, current.signingKeyId(), current.legacyKeyId()));
+            log.info("JWT verification key retired: {}", retiredKeyId);
+        }
+    }
+
+    private Map<String, SecretKey> loadKeyStore() {
+        Map<String, SecretKey> keys = new LinkedHashMap<>();
+        char[] password = keyStorePassword.toCharArray();
+        Resource resource = resourceLoader.getResource(keyStoreLocation);
+        try (InputStream in = resource.getInputStream()) {
+            KeyStore keyStore = KeyStore.getInstance(keyStoreType);
+            keyStore.load(in, password);
+            Enumeration<String> aliases = keyStore.aliases();
+            while (aliases.hasMoreElements()) {
+                String alias = aliases.nextElement();
+                Key key = keyStore.getKey(alias, password);
+                if (key instanceof SecretKey secretKey) {
+                    keys.put(alias, Keys.hmacShaKeyFor(secretKey.getEncoded()));
+                }
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to load JWT key store: " + keyStoreLocation, e);
+        }
+        log.info("Loaded {} JWT keys from key store {}", keys.size(), keyStoreLocation);
+        return keys;
+    }
+
+    /**
+     * 签名密钥及其kid
+     */
+    public record SigningKey(String keyId, SecretKey key) {
+    }
+
+    /**
+     * 不可变的密钥环快照
+     *
+     * @param legacyKeyId 用于验证未携带kid头的旧token
+     */
+    private record KeyRing(Map<String, SecretKey> keys, String signingKeyId, String legacyKeyId) {
+        private KeyRing {
+            keys = Collections.unmodifiableMap(new LinkedHashMap<>(keys));
+        }
+    }
+
+    private class KeyRingResolver extends SigningKeyResolverAdapter {
+        @Override
+        public Key resolveSigningKey(JwsHeader header, Claims claims) {
+            KeyRing ring = keyRing.get();
+            String kid = header.getKeyId() != null ? header.getKeyId() : ring.legacyKeyId();
+            SecretKey key = ring.keys().get(kid);
+            if (key == null) {
+                throw new SignatureException("Unknown JWT key id: " + kid);
+            }
+            return key;
+        }
+    }
+}
@@ -2,37 +2,53 @@ package org.max.cms.auth.util;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
+import lombok.RequiredArgsConstructor;
+import org.max.cms.auth.cache.AuthorityRegistry;
+import org.max.cms.auth.cache.PermissionCatalog;
+import org.max.cms.auth.dto.VerifiedToken;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
-import java.util.ArrayList;
 
 @Component
+@RequiredArgsConstructor
 public class JwtUtil {
 
-    @Value("${jwt.secret:}")
-    private String secret;
+    /**
+     * 权限组合指纹声明，用于复用共享的权限列表
+     */
+    public static final String PERMISSION_FINGERPRINT_CLAIM = "pfp";
+
+    /**
+     * 紧凑格式：权限目录版本
+     */
+    public static final String PERMISSION_CATALOG_VERSION_CLAIM = "pv";
+
+    /**
+     * 紧凑格式：权限位图
+     */
+    public static final String PERMISSION_BITS_CLAIM = "pb";
+
+    private final JwtKeyManager jwtKeyManager;
+    private final PermissionCatalog permissionCatalog;
+
+    /**
+     * 是否以权限目录位图代替权限列表写入token
+     */
+    @Value("${auth.token.compact-permissions:false}")
+    private boolean compactPermissions;
 
     @Value("${jwt.expiration:86400000}") // 24小时
     private Long expiration;
 
-    private SecretKey getSigningKey() {
-        // Check if the secret is empty or too short (less than 256 bits / 32 bytes)
-        if (secret == null || secret.trim().isEmpty() || secret.getBytes().length < 32) {
-            // Generate a secure key automatically as recommended by JWT specification
-            return Keys.secretKeyFor(SignatureAlgorithm.HS256);
-        }
-        return Keys.hmacShaKeyFor(secret.getBytes());
-    }
-
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -41,11 +57,59 @@ public class JwtUtil {
         return extractClaim(token, Claims::getExpiration);
     }
 
-    @SuppressWarnings("unchecked")
     public List<String> extractPermissions(String token) {
+        return extractPermissions(extractAllClaims(token));
+    }
+
+    /**
+     * 解析并验证token，只做一次签名校验和解码
+     * 签名无效或token已过期时抛出JwtException
+     */
+    public VerifiedToken verify(String token) {
         Claims claims = extractAllClaims(token);
-        List<String> permissions = (List<String>) claims.get("permissions");
-        return permissions != null ? permissions : new ArrayList<>();
+        Number userId = claims.get("userId", Number.class);
+        return VerifiedToken.builder()
+                .tokenId(claims.getId())
+                .subject(claims.getSubject())
+                .expiration(claims.getExpiration())
+                .userId(userId != null ? userId.longValue() : null)
+                .roles(getStringList(claims, "roles"))
+                .permissions(extractPermissions(claims))
+                .permissionFingerprint(claims.get(PERMISSION_FINGERPRINT_CLAIM, String.class))
+                .build();
+    }
+
+    /**
+     * 将权限写入token声明
+     * 开启紧凑格式时写入目录版本和位图，否则写入权限列表；两种格式都附带权限组合指纹
+     */
+    public void putPermissions(Map<String, Object> claims, List<String> permissions) {
+        PermissionCatalog.CompactPermissions compact = compactPermissions ? permissionCatalog.encode(permissions) : null;
+        if (compact != null) {
+            claims.put(PERMISSION_CATALOG_VERSION_CLAIM, compact.version());
+            claims.put(PERMISSION_BITS_CLAIM, compact.bits());
+        } else {
+            claims.put("permissions", permissions);
+        }
+        claims.put(PERMISSION_FINGERPRINT_CLAIM, AuthorityRegistry.fingerprint(permissions));
+    }
+
+    private List<String> extractPermissions(Claims claims) {
+        String bits = claims.get(PERMISSION_BITS_CLAIM, String.class);
+        if (bits != null) {
+            try {
+                return permissionCatalog.decode(claims.get(PERMISSION_CATALOG_VERSION_CLAIM, String.class), bits);
+            } catch (IllegalArgumentException e) {
+                throw new MalformedJwtException(e.getMessage(), e);
+            }
+        }
+        return getStringList(claims, "permissions");
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> getStringList(Claims claims, String name) {
+        List<String> values = (List<String>) claims.get(name);
+        return values != null ? List.copyOf(values) : List.of();
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
@@ -54,9 +118,7 @@ public class JwtUtil {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
+        return jwtKeyManager.getParser()
                 .parseClaimsJws(token)
                 .getBody();
     }
@@ -75,12 +137,15 @@ public class JwtUtil {
     }
 
     private String createToken(Map<String, Object> claims, String subject) {
+        JwtKeyManager.SigningKey signingKey = jwtKeyManager.getSigningKey();
         return Jwts.builder()
+                .setHeaderParam("kid", signingKey.keyId())
                 .setClaims(claims)
                 .setSubject(subject)
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey.key(), SignatureAlgorithm.HS256)
                 .compact();
     }
 
@@ -0,0 +1,53 @@
+package org.max.cms.auth.util;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.regex.Pattern;
+
+/**
+ * 旧格式密码校验器
+ * 用于校验未带{id}前缀的存量密码：裸BCrypt哈希或明文。
+ * 只负责校验，校验成功后由登录流程重新哈希为当前算法。
+ * 校验明文前先按当前算法对固定哈希执行一次校验，避免明文账号因响应更快而被识别。
+ */
+public class LegacyPasswordEncoder implements PasswordEncoder {
+    
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("^\\$2[aby]?\\$\\d\\d\\$[./0-9A-Za-z]{53}$");
+    
+    private final BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder();
+    
+    private final PasswordEncoder currentEncoder;
+    
+    /**
+     * 按当前算法和强度生成的固定哈希
+     */
+    private final String dummyHash;
+    
+    public LegacyPasswordEncoder(PasswordEncoder currentEncoder) {
+        this.currentEncoder = currentEncoder;
+        this.dummyHash = currentEncoder.encode("legacy-plaintext-" + System.nanoTime());
+    }
+    
+    @Override
+    public String encode(CharSequence rawPassword) {
+        throw new UnsupportedOperationException("Legacy password format is verify-only");
+    }
+    
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        if (rawPassword == null || encodedPassword == null) {
+            return false;
+        }
+        if (BCRYPT_PATTERN.matcher(encodedPassword).matches()) {
+            return bcrypt.matches(rawPassword, encodedPassword);
+        }
+        currentEncoder.matches(rawPassword, dummyHash);
+        // 明文密码使用常量时间比较
+        return MessageDigest.isEqual(
+                rawPassword.toString().getBytes(StandardCharsets.UTF_8),
+                encodedPassword.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,45 @@
+package org.max.cms.auth.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁令牌桶
+ * 采用GCRA（通用信元速率算法）实现：只维护一个“理论到达时间”，
+ * 通过CAS更新，等价于容量为capacity、每interval补充一个令牌的令牌桶。
+ */
+public final class TokenBucket {
+    
+    private final long intervalMillis;
+    private final long burstToleranceMillis;
+    
+    /**
+     * 理论到达时间（毫秒时间戳）
+     */
+    private final AtomicLong theoreticalArrival = new AtomicLong();
+    
+    public TokenBucket(int capacity, long intervalMillis) {
+        if (capacity < 1 || intervalMillis < 1) {
+            throw new IllegalArgumentException("Capacity and interval must be positive");
+        }
+        this.intervalMillis = intervalMillis;
+        this.burstToleranceMillis = intervalMillis * (capacity - 1);
+    }
+    
+    /**
+     * 尝试获取一个令牌
+     *
+     * @return 获取成功返回0，被限流时返回距离下一个令牌可用的毫秒数
+     */
+    public long tryAcquire(long nowMillis) {
+        while (true) {
+            long current = theoreticalArrival.get();
+            long tat = Math.max(current, nowMillis);
+            if (tat - nowMillis > burstToleranceMillis) {
+                return tat - nowMillis - burstToleranceMillis;
+            }
+            if (theoreticalArrival.compareAndSet(current, tat + intervalMillis)) {
+                return 0;
+            }
+        }
+    }
+}
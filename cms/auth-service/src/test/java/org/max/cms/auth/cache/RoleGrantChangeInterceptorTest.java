@@ -0,0 +1,141 @@
+package org.max.cms.auth.cache;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 角色授权变更拦截器测试
+ */
+class RoleGrantChangeInterceptorTest {
+
+    private final Configuration configuration = new Configuration();
+    private final Executor executor = mock(Executor.class);
+    private final RolePermissionCache rolePermissionCache = mock(RolePermissionCache.class);
+    private final PermissionCatalog permissionCatalog = mock(PermissionCatalog.class);
+
+    private RoleGrantChangeInterceptor interceptor;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        ObjectProvider<RolePermissionCache> cacheProvider = mock(ObjectProvider.class);
+        when(cacheProvider.getObject()).thenReturn(rolePermissionCache);
+        ObjectProvider<PermissionCatalog> catalogProvider = mock(ObjectProvider.class);
+        when(catalogProvider.getObject()).thenReturn(permissionCatalog);
+        interceptor = new RoleGrantChangeInterceptor(cacheProvider, catalogProvider);
+        when(executor.update(any(), any())).thenReturn(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void invalidatesOnDynamicWriteToGrantTableInAnyBranch() throws Throwable {
+        MappedStatement ms = statement("org.max.cms.auth.repository.UserRepository.replaceRoles", """
+                <script>
+                <if test="roleIds != null">
+                    INSERT INTO user_roles (user_id, role_id) VALUES
+                    <foreach collection="roleIds" item="roleId" separator=",">(#{userId}, #{roleId})</foreach>
+                </if>
+                </script>""");
+
+        update(ms, Map.of("userId", 1L));
+
+        verify(rolePermissionCache).invalidateAll();
+        verify(permissionCatalog).markStale();
+    }
+
+    @Test
+    void ignoresReadsOfGrantTablesInOtherWrites() throws Throwable {
+        MappedStatement ms = statement("org.max.cms.auth.repository.UserRepository.disableAdmins", """
+                <script>
+                UPDATE users SET status = 0
+                WHERE id IN (SELECT user_id FROM user_roles WHERE role_id = #{roleId})
+                </script>""");
+
+        update(ms, Map.of("roleId", 1L));
+
+        verify(rolePermissionCache, never()).invalidateAll();
+    }
+
+    @Test
+    void inspectsEachStatementOnce() throws Throwable {
+        MappedStatement ms = spy(statement("org.max.cms.auth.repository.UserRepository.deleteGrants",
+                "DELETE FROM role_permissions WHERE role_id = #{roleId}"));
+
+        update(ms, Map.of("roleId", 1L));
+        update(ms, Map.of("roleId", 2L));
+
+        verify(ms, times(1)).getSqlSource();
+        verify(rolePermissionCache, times(2)).invalidateAll();
+    }
+
+    @Test
+    void invalidatesOnceAfterCommit() throws Throwable {
+        MappedStatement ms = statement("org.max.cms.auth.repository.UserRepository.deleteGrants",
+                "DELETE FROM role_permissions WHERE role_id = #{roleId}");
+        TransactionSynchronizationManager.initSynchronization();
+
+        update(ms, Map.of("roleId", 1L));
+        update(ms, Map.of("roleId", 2L));
+        verify(rolePermissionCache, never()).invalidateAll();
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        synchronizations.forEach(synchronization ->
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        verify(rolePermissionCache, times(1)).invalidateAll();
+        verify(permissionCatalog, times(1)).markStale();
+    }
+
+    @Test
+    void skipsInvalidationOnRollback() throws Throwable {
+        MappedStatement ms = statement("org.max.cms.auth.repository.UserRepository.deleteGrants",
+                "DELETE FROM role_permissions WHERE role_id = #{roleId}");
+        TransactionSynchronizationManager.initSynchronization();
+
+        update(ms, Map.of("roleId", 1L));
+        TransactionSynchronizationManager.getSynchronizations().forEach(synchronization ->
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        verify(rolePermissionCache, never()).invalidateAll();
+    }
+
+    private MappedStatement statement(String id, String script) {
+        return new MappedStatement.Builder(configuration, id,
+                new XMLLanguageDriver().createSqlSource(configuration, script, Map.class), SqlCommandType.UPDATE)
+                .build();
+    }
+
+    private void update(MappedStatement ms, Object parameter) throws Throwable {
+        interceptor.intercept(new Invocation(executor,
+                Executor.class.getMethod("update", MappedStatement.class, Object.class),
+                new Object[]{ms, parameter}));
+    }
+}
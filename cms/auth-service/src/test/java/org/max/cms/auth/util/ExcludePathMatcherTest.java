@@ -0,0 +1,103 @@
+package org.max.cms.auth.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 排除路径匹配器测试
+ * 与原先逐条遍历实现的性能对比见benchmarks模块的ExcludePathMatcherBenchmark
+ */
+class ExcludePathMatcherTest {
+
+    private static final List<String> PATTERNS = List.of(
+            "/api/auth/login",
+            "/api/auth/register",
+            "/api/auth/captcha",
+            "/api/auth/password/forgot",
+            "/api/auth/password/reset",
+            "/swagger-ui/**",
+            "/swagger-ui.html",
+            "/swagger.html",
+            "/v3/api-docs/**",
+            "/swagger-resources/**",
+            "/webjars/**",
+            "/actuator/health",
+            "/actuator/info",
+            "/static/**",
+            "/public/**",
+            "/favicon.ico",
+            "/error",
+            "/api/public/banners/*",
+            "/api/public/notices/*",
+            "/api/public/documents/**",
+            "/api/share/*",
+            "/assets/**",
+            "/css/**",
+            "/js/**");
+
+    private static final List<String> PATHS = List.of(
+            "/api/auth/login",
+            "/api/auth/refresh",
+            "/api/users/42",
+            "/api/documents/17/download",
+            "/swagger-ui/index.html",
+            "/v3/api-docs/swagger-config",
+            "/actuator/health",
+            "/actuator/metrics",
+            "/static/css/app.css",
+            "/api/audit-logs",
+            "/api/public/documents/3/preview",
+            "/favicon.ico");
+
+    private final ExcludePathMatcher matcher = ExcludePathMatcher.compile(PATTERNS);
+
+    @Test
+    void matchesExactPatterns() {
+        assertThat(matcher.matches("/api/auth/login")).isTrue();
+        assertThat(matcher.matches("/api/auth/login/")).isFalse();
+        assertThat(matcher.matches("/api/auth")).isFalse();
+        assertThat(matcher.matches(null)).isFalse();
+    }
+
+    @Test
+    void matchesSingleSegmentPatterns() {
+        assertThat(matcher.matches("/api/share/abc")).isTrue();
+        assertThat(matcher.matches("/api/share/abc/def")).isFalse();
+        assertThat(matcher.matches("/api/share/")).isFalse();
+        assertThat(matcher.matches("/api/share")).isFalse();
+    }
+
+    @Test
+    void matchesAnyPathPatternsOnSegmentBoundaries() {
+        assertThat(matcher.matches("/static")).isTrue();
+        assertThat(matcher.matches("/static/css/app.css")).isTrue();
+        assertThat(matcher.matches("/staticfoo")).isFalse();
+    }
+
+    @Test
+    void agreesWithLegacyMatcherOnTypicalPaths() {
+        for (String path : PATHS) {
+            assertThat(matcher.matches(path)).as(path).isEqualTo(legacyMatches(PATTERNS, path));
+        }
+    }
+
+    /**
+     * 原SecurityPathsConfig.shouldExclude的匹配逻辑（去掉调试日志）
+     */
+    private static boolean legacyMatches(List<String> excludePaths, String path) {
+        return excludePaths.stream().anyMatch(excludePath -> {
+            if (excludePath.endsWith("/**")) {
+                String prefix = excludePath.substring(0, excludePath.length() - 3);
+                return path.startsWith(prefix);
+            } else if (excludePath.endsWith("/*")) {
+                String prefix = excludePath.substring(0, excludePath.length() - 2);
+                return path.startsWith(prefix) && !path.substring(prefix.length()).contains("/");
+            } else {
+                return path.equals(excludePath);
+            }
+        });
+    }
+}
@@ -0,0 +1,94 @@
+package org.max.cms.auth.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.max.cms.auth.cache.PermissionCatalog;
+import org.max.cms.auth.dto.VerifiedToken;
+import org.max.cms.auth.repository.PermissionRepository;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 紧凑权限格式测试
+ * 两种格式的解析耗时对比见benchmarks模块的JwtUtilBenchmark
+ */
+class JwtUtilCompactPermissionsTest {
+
+    /**
+     * 基线数据中的全部权限编码，即管理员token携带的权限
+     */
+    private static final List<String> CATALOG = List.of(
+            "SYSTEM_MANAGEMENT", "USER_MANAGEMENT", "USER_READ", "USER_CREATE", "USER_UPDATE", "USER_DELETE",
+            "USER_ASSIGN_ROLES", "USER_RESET_PASSWORD", "ROLE_MANAGEMENT", "ROLE_READ", "ROLE_CREATE",
+            "ROLE_UPDATE", "ROLE_DELETE", "ROLE_ASSIGN_PERMISSIONS", "PERMISSION_MANAGEMENT", "PERMISSION_READ",
+            "PERMISSION_CREATE", "PERMISSION_UPDATE", "PERMISSION_DELETE", "ASSET_MANAGEMENT", "ASSET_READ",
+            "ASSET_CREATE", "ASSET_UPDATE", "ASSET_DELETE", "ASSET_EXPORT", "AUDIT_LOG_MANAGEMENT",
+            "AUDIT_LOG_READ", "AUDIT_LOG_EXPORT");
+
+    private JwtUtil fullJwtUtil;
+    private JwtUtil compactJwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        PermissionRepository permissionRepository = mock(PermissionRepository.class);
+        when(permissionRepository.findCatalogCodes()).thenReturn(CATALOG);
+        PermissionCatalog permissionCatalog = new PermissionCatalog(permissionRepository);
+        ReflectionTestUtils.setField(permissionCatalog, "retainedVersions", 8);
+        ReflectionTestUtils.setField(permissionCatalog, "unknownVersionReloadInterval", Duration.ofSeconds(5));
+
+        JwtKeyManager jwtKeyManager = new JwtKeyManager(new DefaultResourceLoader());
+        ReflectionTestUtils.setField(jwtKeyManager, "secret", "test-secret-key-with-at-least-32-bytes");
+        ReflectionTestUtils.setField(jwtKeyManager, "keyId", "test");
+        jwtKeyManager.init();
+
+        fullJwtUtil = jwtUtil(jwtKeyManager, permissionCatalog, false);
+        compactJwtUtil = jwtUtil(jwtKeyManager, permissionCatalog, true);
+    }
+
+    @Test
+    void compactTokenDecodesToSamePermissions() {
+        String token = compactJwtUtil.generateToken("admin", claims(compactJwtUtil, CATALOG));
+
+        VerifiedToken verified = fullJwtUtil.verify(token);
+
+        assertThat(verified.getPermissions()).containsExactlyElementsOf(CATALOG);
+        assertThat(verified.getUserId()).isEqualTo(1L);
+    }
+
+    @Test
+    void compactTokenIsSmallerForAdministrators() {
+        String full = fullJwtUtil.generateToken("admin", claims(fullJwtUtil, CATALOG));
+        String compact = compactJwtUtil.generateToken("admin", claims(compactJwtUtil, CATALOG));
+
+        assertThat(compact.length()).isLessThan(full.length() / 2);
+    }
+
+    private static JwtUtil jwtUtil(JwtKeyManager jwtKeyManager, PermissionCatalog permissionCatalog,
+                                   boolean compactPermissions) {
+        JwtUtil jwtUtil = new JwtUtil(jwtKeyManager, permissionCatalog);
+        ReflectionTestUtils.setField(jwtUtil, "compactPermissions", compactPermissions);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 86400000L);
+        return jwtUtil;
+    }
+
+    /**
+     * 与AuthServiceImpl签发登录token时的声明一致
+     */
+    private static Map<String, Object> claims(JwtUtil jwtUtil, List<String> permissions) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("userId", 1L);
+        claims.put("email", "admin@example.com");
+        claims.put("roles", List.of("SUPER_ADMIN", "ADMIN"));
+        jwtUtil.putPermissions(claims, permissions);
+        return claims;
+    }
+}
@@ -0,0 +1,39 @@
+package org.max.cms.auth.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 旧格式密码校验器测试
+ */
+class LegacyPasswordEncoderTest {
+
+    private final PasswordEncoder currentEncoder = spy(new BCryptPasswordEncoder(4));
+    private final LegacyPasswordEncoder encoder = new LegacyPasswordEncoder(currentEncoder);
+
+    @Test
+    void hashesOnceWithCurrentAlgorithmBeforeComparingPlaintext() {
+        assertThat(encoder.matches("secret", "secret")).isTrue();
+        assertThat(encoder.matches("guess", "secret")).isFalse();
+
+        verify(currentEncoder, times(2)).matches(any(), anyString());
+    }
+
+    @Test
+    void verifiesBareBcryptHashesWithoutDummyHash() {
+        String hash = new BCryptPasswordEncoder(4).encode("secret");
+
+        assertThat(encoder.matches("secret", hash)).isTrue();
+        assertThat(encoder.matches("guess", hash)).isFalse();
+        verify(currentEncoder, never()).matches(any(), anyString());
+    }
+}
@@ -0,0 +1,114 @@
+package org.max.cms.auth.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 排除路径匹配基准测试
+ * 24条排除规则下，编译后的匹配器与原先逐条遍历的实现对比单次匹配耗时：
+ * java -jar benchmarks/target/benchmarks.jar ExcludePathMatcherBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExcludePathMatcherBenchmark {
+
+    private static final List<String> PATTERNS = List.of(
+            "/api/auth/login",
+            "/api/auth/register",
+            "/api/auth/captcha",
+            "/api/auth/password/forgot",
+            "/api/auth/password/reset",
+            "/swagger-ui/**",
+            "/swagger-ui.html",
+            "/swagger.html",
+            "/v3/api-docs/**",
+            "/swagger-resources/**",
+            "/webjars/**",
+            "/actuator/health",
+            "/actuator/info",
+            "/static/**",
+            "/public/**",
+            "/favicon.ico",
+            "/error",
+            "/api/public/banners/*",
+            "/api/public/notices/*",
+            "/api/public/documents/**",
+            "/api/share/*",
+            "/assets/**",
+            "/css/**",
+            "/js/**");
+
+    /**
+     * 典型请求路径，多数为需要认证的业务接口
+     */
+    private static final String[] PATHS = {
+            "/api/auth/login",
+            "/api/auth/refresh",
+            "/api/users/42",
+            "/api/documents/17/download",
+            "/swagger-ui/index.html",
+            "/v3/api-docs/swagger-config",
+            "/actuator/health",
+            "/actuator/metrics",
+            "/static/css/app.css",
+            "/api/audit-logs",
+            "/api/public/documents/3/preview",
+            "/favicon.ico"};
+
+    private ExcludePathMatcher matcher;
+
+    @Setup
+    public void setUp() {
+        matcher = ExcludePathMatcher.compile(PATTERNS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(12)
+    public void compiled(Blackhole blackhole) {
+        for (String path : PATHS) {
+            blackhole.consume(matcher.matches(path));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(12)
+    public void legacy(Blackhole blackhole) {
+        for (String path : PATHS) {
+            blackhole.consume(legacyMatches(PATTERNS, path));
+        }
+    }
+
+    /**
+     * 原SecurityPathsConfig.shouldExclude的匹配逻辑（去掉调试日志）
+     */
+    private static boolean legacyMatches(List<String> excludePaths, String path) {
+        return excludePaths.stream().anyMatch(excludePath -> {
+            if (excludePath.endsWith("/**")) {
+                String prefix = excludePath.substring(0, excludePath.length() - 3);
+                return path.startsWith(prefix);
+            } else if (excludePath.endsWith("/*")) {
+                String prefix = excludePath.substring(0, excludePath.length() - 2);
+                return path.startsWith(prefix) && !path.substring(prefix.length()).contains("/");
+            } else {
+                return path.equals(excludePath);
+            }
+        });
+    }
+}
@@ -0,0 +1,92 @@
+package org.max.cms.auth.util;
+
+import org.max.cms.auth.cache.PermissionCatalog;
+import org.max.cms.auth.dto.VerifiedToken;
+import org.max.cms.auth.repository.PermissionRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 令牌权限格式基准测试
+ * 管理员令牌（携带全部28个权限）分别使用完整权限列表和紧凑位图格式时的校验解析耗时，
+ * Authorization头大小在准备阶段输出：
+ * java -jar benchmarks/target/benchmarks.jar JwtUtilBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    /**
+     * 基线数据中的全部权限编码，即管理员token携带的权限
+     */
+    private static final List<String> CATALOG = List.of(
+            "SYSTEM_MANAGEMENT", "USER_MANAGEMENT", "USER_READ", "USER_CREATE", "USER_UPDATE", "USER_DELETE",
+            "USER_ASSIGN_ROLES", "USER_RESET_PASSWORD", "ROLE_MANAGEMENT", "ROLE_READ", "ROLE_CREATE",
+            "ROLE_UPDATE", "ROLE_DELETE", "ROLE_ASSIGN_PERMISSIONS", "PERMISSION_MANAGEMENT", "PERMISSION_READ",
+            "PERMISSION_CREATE", "PERMISSION_UPDATE", "PERMISSION_DELETE", "ASSET_MANAGEMENT", "ASSET_READ",
+            "ASSET_CREATE", "ASSET_UPDATE", "ASSET_DELETE", "ASSET_EXPORT", "AUDIT_LOG_MANAGEMENT",
+            "AUDIT_LOG_READ", "AUDIT_LOG_EXPORT");
+
+    @Param({"false", "true"})
+    public boolean compactPermissions;
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        PermissionRepository permissionRepository = mock(PermissionRepository.class);
+        when(permissionRepository.findCatalogCodes()).thenReturn(CATALOG);
+        PermissionCatalog permissionCatalog = new PermissionCatalog(permissionRepository);
+        ReflectionTestUtils.setField(permissionCatalog, "retainedVersions", 8);
+        ReflectionTestUtils.setField(permissionCatalog, "unknownVersionReloadInterval", Duration.ofSeconds(5));
+
+        JwtKeyManager jwtKeyManager = new JwtKeyManager(new DefaultResourceLoader());
+        ReflectionTestUtils.setField(jwtKeyManager, "secret", "benchmark-secret-key-with-at-least-32-bytes");
+        ReflectionTestUtils.setField(jwtKeyManager, "keyId", "benchmark");
+        jwtKeyManager.init();
+
+        jwtUtil = new JwtUtil(jwtKeyManager, permissionCatalog);
+        ReflectionTestUtils.setField(jwtUtil, "compactPermissions", compactPermissions);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 86400000L);
+
+        // 与AuthServiceImpl签发登录token时的声明一致
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("userId", 1L);
+        claims.put("email", "admin@example.com");
+        claims.put("roles", List.of("SUPER_ADMIN", "ADMIN"));
+        jwtUtil.putPermissions(claims, CATALOG);
+        token = jwtUtil.generateToken("admin", claims);
+        System.out.printf("%nAuthorization header, compact=%s: %d bytes%n", compactPermissions,
+                ("Bearer " + token).length());
+    }
+
+    @Benchmark
+    public VerifiedToken verify() {
+        return jwtUtil.verify(token);
+    }
+}
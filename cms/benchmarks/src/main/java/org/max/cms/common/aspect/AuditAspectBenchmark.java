@@ -0,0 +1,117 @@
+package org.max.cms.common.aspect;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.max.cms.common.annotation.Auditable;
+import org.max.cms.common.entity.AuditLog;
+import org.max.cms.common.service.AuditLogService;
+import org.max.cms.common.util.AuditContextHolder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * 审计切面单次调用开销基准测试
+ * 同一控制器方法直接调用与经过审计切面调用的耗时对比，切面包括表达式求值、请求体脱敏序列化和组装审计日志，
+ * 审计日志交给空实现的AuditLogService，不包含异步写库：
+ * java -jar benchmarks/target/benchmarks.jar AuditAspectBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuditAspectBenchmark {
+
+    private final DocumentRequest body = new DocumentRequest(7L, "contract.pdf", "s3cr3t");
+
+    private DocumentController target;
+    private DocumentController audited;
+
+    /**
+     * 保留最近一条审计日志，避免记录过程被当作无用代码消除
+     */
+    private AuditLog lastAuditLog;
+
+    /**
+     * 请求上下文和审计上下文都是线程变量，在执行基准测试的线程上准备
+     */
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        AuditPlanRegistry auditPlanRegistry = new AuditPlanRegistry(mock(ApplicationContext.class), objectMapper);
+        ReflectionTestUtils.setField(auditPlanRegistry, "maxFieldLength", 8192);
+        AuditLogService auditLogService = (auditLog, async) -> lastAuditLog = auditLog;
+        AuditAspect auditAspect = new AuditAspect(auditLogService, auditPlanRegistry, new AuditChangeDiffer(objectMapper));
+
+        target = new DocumentController();
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(target);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(auditAspect);
+        audited = proxyFactory.getProxy();
+
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/documents");
+        request.addHeader("User-Agent", "JMH");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, new MockHttpServletResponse()));
+        AuditContextHolder.setCurrentUser(1L, "admin", "管理员");
+    }
+
+    @TearDown
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        AuditContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public DocumentRequest direct() {
+        return target.create(body);
+    }
+
+    @Benchmark
+    public DocumentRequest audited() {
+        return audited.create(body);
+    }
+
+    public static class DocumentController {
+
+        @Auditable(operationType = "CREATE", operationName = "创建文档", businessModule = "DOCUMENT",
+                targetType = "DOCUMENT", sensitiveFields = {"password"},
+                descExpression = "创建文档 #{#request.name}",
+                targetIdExpression = "#request.id", targetNameExpression = "#request.name")
+        public DocumentRequest create(@RequestBody DocumentRequest request) {
+            return request;
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DocumentRequest {
+        private Long id;
+        private String name;
+        private String password;
+    }
+}
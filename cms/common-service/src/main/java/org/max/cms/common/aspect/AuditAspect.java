@@ -0,0 +1,178 @@
+package org.max.cms.common.aspect;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.max.cms.common.annotation.Auditable;
+import org.max.cms.common.entity.AuditLog;
+import org.max.cms.common.service.AuditLogService;
+import org.max.cms.common.util.AuditChangeCapture;
+import org.max.cms.common.util.AuditContextHolder;
+import org.max.cms.common.util.IpUtils;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.net.InetAddress;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 审计切面
+ * 拦截标注了@Auditable的方法，按预编译的执行计划采集请求、用户和执行结果信息后交给审计日志服务。
+ * UPDATE操作执行期间开启变更捕获，记录被更新行的字段级差异。
+ */
+@Aspect
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class AuditAspect {
+
+    private static final String SERVER_NAME = resolveServerName();
+
+    private final AuditLogService auditLogService;
+    private final AuditPlanRegistry auditPlanRegistry;
+    private final AuditChangeDiffer auditChangeDiffer;
+
+    @Around("@annotation(auditable)")
+    public Object around(ProceedingJoinPoint joinPoint, Auditable auditable) throws Throwable {
+        LocalDateTime startTime = LocalDateTime.now();
+        long start = System.currentTimeMillis();
+        AuditPlan plan = auditPlanRegistry.planFor(((MethodSignature) joinPoint.getSignature()).getMethod(), auditable);
+        HttpServletRequest request = currentRequest();
+        String operationType = plan.operationType() != null ? plan.operationType() : inferOperationType(request);
+        boolean capturing = "UPDATE".equals(operationType) && AuditChangeCapture.begin();
+        Object result = null;
+        Throwable error = null;
+        try {
+            result = joinPoint.proceed();
+            return result;
+        } catch (Throwable t) {
+            error = t;
+            throw t;
+        } finally {
+            List<AuditChangeCapture.RowChange> changes = capturing ? AuditChangeCapture.end() : List.of();
+            try {
+                AuditLog auditLog = buildAuditLog(plan, request, operationType, joinPoint.getArgs(), result, error,
+                        startTime, System.currentTimeMillis() - start);
+                auditChangeDiffer.apply(auditLog, changes, plan);
+                truncateToColumns(auditLog);
+                auditLogService.record(auditLog, plan.isAsync());
+            } catch (Exception e) {
+                // 审计失败不影响业务
+                log.warn("Failed to record audit log for {}", joinPoint.getSignature().toShortString(), e);
+            }
+        }
+    }
+
+    private AuditLog buildAuditLog(AuditPlan plan, HttpServletRequest request, String operationType, Object[] args,
+                                   Object result, Throwable error, LocalDateTime startTime, long elapsedMillis) {
+        AuditLog auditLog = new AuditLog();
+        plan.applyDeclaredAttributes(auditLog);
+        auditLog.setOperationType(operationType);
+        plan.applyExpressions(auditLog, args, result);
+
+        if (request != null) {
+            auditLog.setRequestMethod(request.getMethod());
+            String requestUrl = request.getRequestURI();
+            auditLog.setRequestUrl(requestUrl);
+            auditLog.setIpAddress(IpUtils.getClientIpAddress(request));
+            auditLog.setUserAgent(request.getHeader("User-Agent"));
+            HttpSession session = request.getSession(false);
+            auditLog.setSessionId(session != null ? session.getId() : null);
+            auditLog.setRequestParams(plan.requestParams(request));
+            auditLog.setRequestHeaders(plan.requestHeaders(request));
+        }
+        auditLog.setRequestBody(plan.requestBody(args));
+        auditLog.setResponseBody(plan.responseBody(result instanceof ResponseEntity<?> entity ? entity.getBody() : result));
+        auditLog.setResponseStatus(responseStatus(result, error));
+        auditLog.setResponseTime(elapsedMillis);
+
+        AuditContextHolder.AuditContext context = AuditContextHolder.getContext();
+        auditLog.setUserId(context.getUserId());
+        auditLog.setUsername(context.getUsername() != null || request == null ? context.getUsername() : request.getRemoteUser());
+        auditLog.setUserRealName(context.getUserRealName());
+        auditLog.setTraceId(context.getTraceId());
+        auditLog.setServerName(SERVER_NAME);
+        auditLog.setThreadId(Thread.currentThread().getName());
+
+        auditLog.setStatus(error == null ? "SUCCESS" : "FAILED");
+        auditLog.setErrorMessage(error != null ? error.getMessage() : null);
+        auditLog.setStartTime(startTime);
+        auditLog.setEndTime(LocalDateTime.now());
+        auditLog.setOperationDate(startTime.toLocalDate());
+        return auditLog;
+    }
+
+    /**
+     * 按audit_logs的列宽截断字符串字段，避免超长值导致整批写入失败
+     */
+    private static void truncateToColumns(AuditLog auditLog) {
+        auditLog.setOperationType(AuditPlan.truncate(auditLog.getOperationType(), 50));
+        auditLog.setOperationName(AuditPlan.truncate(auditLog.getOperationName(), 100));
+        auditLog.setRequestMethod(AuditPlan.truncate(auditLog.getRequestMethod(), 10));
+        auditLog.setRequestUrl(AuditPlan.truncate(auditLog.getRequestUrl(), 500));
+        auditLog.setBusinessModule(AuditPlan.truncate(auditLog.getBusinessModule(), 50));
+        auditLog.setTargetType(AuditPlan.truncate(auditLog.getTargetType(), 50));
+        auditLog.setTargetId(AuditPlan.truncate(auditLog.getTargetId(), 100));
+        auditLog.setTargetName(AuditPlan.truncate(auditLog.getTargetName(), 200));
+        auditLog.setUsername(AuditPlan.truncate(auditLog.getUsername(), 100));
+        auditLog.setUserRealName(AuditPlan.truncate(auditLog.getUserRealName(), 100));
+        auditLog.setIpAddress(AuditPlan.truncate(auditLog.getIpAddress(), 45));
+        auditLog.setSessionId(AuditPlan.truncate(auditLog.getSessionId(), 100));
+        auditLog.setServerName(AuditPlan.truncate(auditLog.getServerName(), 100));
+        auditLog.setThreadId(AuditPlan.truncate(auditLog.getThreadId(), 50));
+        auditLog.setTraceId(AuditPlan.truncate(auditLog.getTraceId(), 100));
+        auditLog.setStatus(AuditPlan.truncate(auditLog.getStatus(), 20));
+        auditLog.setRiskLevel(AuditPlan.truncate(auditLog.getRiskLevel(), 20));
+    }
+
+    private static HttpServletRequest currentRequest() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            return attributes.getRequest();
+        }
+        return null;
+    }
+
+    private static String inferOperationType(HttpServletRequest request) {
+        if (request == null) {
+            return "OTHER";
+        }
+        return switch (request.getMethod()) {
+            case "GET", "HEAD" -> "QUERY";
+            case "POST" -> "CREATE";
+            case "PUT", "PATCH" -> "UPDATE";
+            case "DELETE" -> "DELETE";
+            default -> "OTHER";
+        };
+    }
+
+    private static Integer responseStatus(Object result, Throwable error) {
+        if (result instanceof ResponseEntity<?> entity) {
+            return entity.getStatusCode().value();
+        }
+        if (error != null) {
+            return null;
+        }
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            HttpServletResponse response = attributes.getResponse();
+            return response != null ? response.getStatus() : null;
+        }
+        return null;
+    }
+
+    private static String resolveServerName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "unknown";
+        }
+    }
+}
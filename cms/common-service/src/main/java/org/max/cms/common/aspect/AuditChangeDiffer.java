@@ -0,0 +1,130 @@
+package org.max.cms.common.aspect;
+
+import com.baomidou.mybatisplus.annotation.FieldFill;
+import com.baomidou.mybatisplus.core.metadata.TableFieldInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.max.cms.common.entity.AuditLog;
+import org.max.cms.common.util.AuditChangeCapture.RowChange;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 审计变更差异计算
+ * 比较修改前后的行镜像，只保留发生变化的字段，列名按实体映射换算为属性名，
+ * 自动填充的更新时间/更新人等字段不计入变更。每张表的列映射只构建一次。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AuditChangeDiffer {
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, TableModel> tableModels = new ConcurrentHashMap<>();
+
+    /**
+     * 将变更差异写入审计日志的old_values、new_values和changed_fields
+     * 单行变更写为对象，多行变更写为数组且每项带主键
+     */
+    void apply(AuditLog auditLog, List<RowChange> changes, AuditPlan plan) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        ArrayNode oldValues = objectMapper.createArrayNode();
+        ArrayNode newValues = objectMapper.createArrayNode();
+        Set<String> changedFields = new LinkedHashSet<>();
+        boolean multipleRows = changes.size() > 1;
+
+        for (RowChange change : changes) {
+            try {
+                JsonNode oldRow = objectMapper.readTree(change.oldRow());
+                JsonNode newRow = objectMapper.readTree(change.newRow());
+                TableModel model = tableModels.computeIfAbsent(change.table(), TableModel::of);
+                ObjectNode oldDiff = objectMapper.createObjectNode();
+                ObjectNode newDiff = objectMapper.createObjectNode();
+
+                for (Map.Entry<String, JsonNode> column : newRow.properties()) {
+                    if (model.ignored().contains(column.getKey())) {
+                        continue;
+                    }
+                    JsonNode oldValue = oldRow.path(column.getKey());
+                    if (oldValue.equals(column.getValue())) {
+                        continue;
+                    }
+                    String property = model.property(column.getKey());
+                    changedFields.add(property);
+                    boolean sensitive = plan.isSensitive(property);
+                    oldDiff.set(property, sensitive ? oldDiff.textNode(AuditPlan.MASK) : oldValue);
+                    newDiff.set(property, sensitive ? newDiff.textNode(AuditPlan.MASK) : column.getValue());
+                }
+                if (oldDiff.isEmpty()) {
+                    continue;
+                }
+                if (multipleRows && model.keyColumn() != null) {
+                    JsonNode key = newRow.path(model.keyColumn());
+                    oldDiff.set(model.property(model.keyColumn()), key);
+                    newDiff.set(model.property(model.keyColumn()), key);
+                }
+                oldValues.add(oldDiff);
+                newValues.add(newDiff);
+            } catch (JsonProcessingException e) {
+                log.debug("Unable to parse row image of {}", change.table(), e);
+            }
+        }
+        if (changedFields.isEmpty()) {
+            return;
+        }
+        try {
+            boolean single = oldValues.size() == 1;
+            auditLog.setOldValues(objectMapper.writeValueAsString(single ? oldValues.get(0) : oldValues));
+            auditLog.setNewValues(objectMapper.writeValueAsString(single ? newValues.get(0) : newValues));
+            auditLog.setChangedFields(objectMapper.writeValueAsString(changedFields));
+        } catch (JsonProcessingException e) {
+            log.debug("Unable to write audit change values", e);
+        }
+    }
+
+    /**
+     * 表的列到属性映射及忽略列
+     */
+    private record TableModel(Map<String, String> properties, Set<String> ignored, String keyColumn) {
+
+        static TableModel of(String table) {
+            Map<String, String> properties = new HashMap<>();
+            Set<String> ignored = new HashSet<>();
+            TableInfo tableInfo = TableInfoHelper.getTableInfo(table);
+            if (tableInfo == null) {
+                return new TableModel(properties, ignored, null);
+            }
+            if (tableInfo.getKeyColumn() != null) {
+                properties.put(tableInfo.getKeyColumn(), tableInfo.getKeyProperty());
+            }
+            for (TableFieldInfo field : tableInfo.getFieldList()) {
+                properties.put(field.getColumn(), field.getProperty());
+                if (field.getFieldFill() == FieldFill.UPDATE || field.getFieldFill() == FieldFill.INSERT_UPDATE) {
+                    ignored.add(field.getColumn());
+                }
+            }
+            return new TableModel(Map.copyOf(properties), Set.copyOf(ignored), tableInfo.getKeyColumn());
+        }
+
+        String property(String column) {
+            return properties.getOrDefault(column, column);
+        }
+    }
+}
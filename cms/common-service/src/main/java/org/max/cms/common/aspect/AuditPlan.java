@@ -0,0 +1,395 @@
+package org.max.cms.common.aspect;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.max.cms.common.annotation.Auditable;
+import org.max.cms.common.entity.AuditLog;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.EvaluationException;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ParserContext;
+import org.springframework.expression.common.TemplateParserContext;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.SimpleEvaluationContext;
+import org.springframework.util.StringUtils;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 审计方法的预编译执行计划
+ * 注解属性、SpEL表达式、参数名、请求体参数位置以及带脱敏的Jackson写入器在编译时确定，
+ * 调用时只做表达式求值和流式序列化，序列化结果写入线程复用的有界缓冲区，超出上限即停止。
+ */
+@Slf4j
+final class AuditPlan {
+
+    static final String MASK = "******";
+
+    private static final String TRUNCATED_SUFFIX = "...(truncated)";
+
+    private static final SpelExpressionParser PARSER = new SpelExpressionParser(
+            new SpelParserConfiguration(SpelCompilerMode.MIXED, AuditPlan.class.getClassLoader()));
+
+    private static final ParserContext TEMPLATE = new TemplateParserContext();
+
+    private static final ParameterNameDiscoverer PARAMETER_NAMES = new DefaultParameterNameDiscoverer();
+
+    private static final ThreadLocal<BoundedWriter> BUFFER = ThreadLocal.withInitial(BoundedWriter::new);
+
+    private static final Set<Class<?>> NON_BODY_TYPES = Set.of(ServletRequest.class, ServletResponse.class,
+            MultipartFile.class, InputStream.class, BindingResult.class);
+
+    private final String operationType;
+    private final String operationName;
+    private final String operationDesc;
+    private final String businessModule;
+    private final String targetType;
+    private final String riskLevel;
+    private final boolean async;
+    private final boolean includeParams;
+    private final boolean includeHeaders;
+    private final boolean includeResponse;
+
+    private final String[] parameterNames;
+    private final Expression descExpression;
+    private final Expression targetIdExpression;
+    private final Expression targetNameExpression;
+
+    /**
+     * 请求体参数位置，-1表示不记录
+     */
+    private final int requestBodyIndex;
+    private final ObjectWriter requestBodyWriter;
+    private final boolean requestBodyIsTree;
+    private final ObjectWriter valueWriter;
+    private final ObjectMapper maskingMapper;
+
+    private final Set<String> sensitiveFields;
+    private final int maxLength;
+
+    AuditPlan(Method method, Auditable auditable, ObjectMapper maskingMapper, Set<String> sensitiveFields, int maxLength) {
+        this.operationType = StringUtils.hasText(auditable.operationType()) ? auditable.operationType() : null;
+        this.operationName = StringUtils.hasText(auditable.operationName())
+                ? auditable.operationName() : method.getDeclaringClass().getSimpleName() + "." + method.getName();
+        this.operationDesc = StringUtils.hasText(auditable.operationDesc()) ? auditable.operationDesc() : null;
+        this.businessModule = StringUtils.hasText(auditable.businessModule()) ? auditable.businessModule() : null;
+        this.targetType = StringUtils.hasText(auditable.targetType()) ? auditable.targetType() : null;
+        this.riskLevel = auditable.riskLevel();
+        this.async = auditable.async();
+        this.includeParams = auditable.includeParams();
+        this.includeHeaders = auditable.includeHeaders();
+        this.includeResponse = auditable.includeResponse();
+
+        String[] names = PARAMETER_NAMES.getParameterNames(method);
+        this.parameterNames = names != null ? names : new String[0];
+        this.descExpression = parse(auditable.descExpression());
+        this.targetIdExpression = parse(auditable.targetIdExpression());
+        this.targetNameExpression = parse(auditable.targetNameExpression());
+
+        this.maskingMapper = maskingMapper;
+        this.sensitiveFields = sensitiveFields;
+        this.maxLength = maxLength;
+        this.requestBodyIndex = auditable.includeRequestBody() ? requestBodyIndex(method) : -1;
+        if (requestBodyIndex >= 0) {
+            Class<?> bodyType = method.getParameterTypes()[requestBodyIndex];
+            this.requestBodyIsTree = Map.class.isAssignableFrom(bodyType) || JsonNode.class.isAssignableFrom(bodyType);
+            this.requestBodyWriter = maskingMapper.writerFor(
+                    maskingMapper.constructType(method.getGenericParameterTypes()[requestBodyIndex]));
+        } else {
+            this.requestBodyIsTree = false;
+            this.requestBodyWriter = null;
+        }
+        this.valueWriter = maskingMapper.writer();
+    }
+
+    boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * 填充注解声明的静态属性
+     */
+    void applyDeclaredAttributes(AuditLog auditLog) {
+        auditLog.setOperationName(truncate(operationName, 100));
+        auditLog.setOperationDesc(operationDesc);
+        auditLog.setBusinessModule(businessModule);
+        auditLog.setTargetType(targetType);
+        auditLog.setRiskLevel(riskLevel);
+    }
+
+    String operationType() {
+        return operationType;
+    }
+
+    /**
+     * 求值SpEL表达式，可引用方法参数名及#result
+     */
+    void applyExpressions(AuditLog auditLog, Object[] args, Object result) {
+        if (descExpression == null && targetIdExpression == null && targetNameExpression == null) {
+            return;
+        }
+        EvaluationContext context = SimpleEvaluationContext.forReadOnlyDataBinding().withInstanceMethods().build();
+        for (int i = 0; i < args.length && i < parameterNames.length; i++) {
+            context.setVariable(parameterNames[i], args[i]);
+        }
+        context.setVariable("result", result);
+
+        String desc = evaluate(descExpression, context);
+        if (desc != null) {
+            auditLog.setOperationDesc(desc);
+        }
+        auditLog.setTargetId(truncate(evaluate(targetIdExpression, context), 100));
+        auditLog.setTargetName(truncate(evaluate(targetNameExpression, context), 200));
+    }
+
+    String requestParams(HttpServletRequest request) {
+        if (!includeParams || request.getParameterMap().isEmpty()) {
+            return null;
+        }
+        Map<String, Object> params = new LinkedHashMap<>();
+        for (Map.Entry<String, String[]> entry : request.getParameterMap().entrySet()) {
+            String[] values = entry.getValue();
+            params.put(entry.getKey(), isSensitive(entry.getKey()) ? MASK : values.length == 1 ? values[0] : values);
+        }
+        return write(valueWriter, params);
+    }
+
+    String requestHeaders(HttpServletRequest request) {
+        if (!includeHeaders) {
+            return null;
+        }
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (String name : Collections.list(request.getHeaderNames())) {
+            boolean credential = "authorization".equalsIgnoreCase(name) || "cookie".equalsIgnoreCase(name);
+            headers.put(name, credential || isSensitive(name) ? MASK : request.getHeader(name));
+        }
+        return write(valueWriter, headers);
+    }
+
+    String requestBody(Object[] args) {
+        if (requestBodyIndex < 0 || requestBodyIndex >= args.length || args[requestBodyIndex] == null) {
+            return null;
+        }
+        Object body = args[requestBodyIndex];
+        if (requestBodyIsTree) {
+            return writeTree(body);
+        }
+        return write(requestBodyWriter, body);
+    }
+
+    String responseBody(Object body) {
+        if (!includeResponse || body == null) {
+            return null;
+        }
+        if (body instanceof Map || body instanceof JsonNode) {
+            return writeTree(body);
+        }
+        return write(valueWriter, body);
+    }
+
+    /**
+     * 以流式方式序列化到线程复用的缓冲区，超出上限时截断
+     */
+    private String write(ObjectWriter writer, Object value) {
+        BoundedWriter out = BUFFER.get();
+        out.reset(maxLength);
+        try {
+            writer.writeValue(out, value);
+        } catch (IOException | RuntimeException e) {
+            if (out.truncated) {
+                return out.toString() + TRUNCATED_SUFFIX;
+            }
+            log.debug("Unable to serialize audit value of type {}", value.getClass().getName(), e);
+            return null;
+        }
+        return out.toString();
+    }
+
+    /**
+     * Map和JsonNode的键无法在序列化器层面脱敏，转换为树后处理
+     */
+    private String writeTree(Object value) {
+        try {
+            JsonNode node = maskingMapper.valueToTree(value);
+            mask(node);
+            return write(valueWriter, node);
+        } catch (RuntimeException e) {
+            log.debug("Unable to serialize audit value of type {}", value.getClass().getName(), e);
+            return null;
+        }
+    }
+
+    private void mask(JsonNode node) {
+        if (node instanceof ObjectNode objectNode) {
+            for (Map.Entry<String, JsonNode> field : objectNode.properties()) {
+                if (isSensitive(field.getKey())) {
+                    field.setValue(objectNode.textNode(MASK));
+                } else {
+                    mask(field.getValue());
+                }
+            }
+        } else if (node instanceof ArrayNode arrayNode) {
+            for (JsonNode element : arrayNode) {
+                mask(element);
+            }
+        }
+    }
+
+    boolean isSensitive(String name) {
+        return sensitiveFields.contains(name.toLowerCase(Locale.ROOT));
+    }
+
+    private static Expression parse(String expression) {
+        if (!StringUtils.hasText(expression)) {
+            return null;
+        }
+        return expression.contains(TEMPLATE.getExpressionPrefix())
+                ? PARSER.parseExpression(expression, TEMPLATE)
+                : PARSER.parseExpression(expression);
+    }
+
+    private static String evaluate(Expression expression, EvaluationContext context) {
+        if (expression == null) {
+            return null;
+        }
+        try {
+            Object value = expression.getValue(context);
+            return value != null ? value.toString() : null;
+        } catch (EvaluationException e) {
+            log.debug("Failed to evaluate audit expression {}", expression.getExpressionString(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 取@RequestBody参数；无该注解时取第一个非框架类型的参数
+     */
+    private static int requestBodyIndex(Method method) {
+        Annotation[][] annotations = method.getParameterAnnotations();
+        Class<?>[] types = method.getParameterTypes();
+        int candidate = -1;
+        for (int i = 0; i < types.length; i++) {
+            for (Annotation annotation : annotations[i]) {
+                if (annotation instanceof RequestBody) {
+                    return i;
+                }
+            }
+            if (candidate < 0 && isBodyType(types[i])) {
+                candidate = i;
+            }
+        }
+        return candidate;
+    }
+
+    private static boolean isBodyType(Class<?> parameterType) {
+        for (Class<?> type : NON_BODY_TYPES) {
+            if (type.isAssignableFrom(parameterType)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static String truncate(String value, int maxLength) {
+        return value != null && value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+
+    /**
+     * 有界字符缓冲区，写满后抛出异常中止序列化
+     */
+    private static final class BoundedWriter extends Writer {
+
+        /**
+         * 缓冲区超过该容量时在下次使用前释放，避免线程长期持有大对象
+         */
+        private static final int RETAINED_CAPACITY = 64 * 1024;
+
+        private StringBuilder buffer = new StringBuilder(1024);
+        private int limit;
+        private boolean truncated;
+
+        void reset(int limit) {
+            if (buffer.capacity() > RETAINED_CAPACITY) {
+                buffer = new StringBuilder(1024);
+            }
+            buffer.setLength(0);
+            this.limit = limit;
+            this.truncated = false;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException {
+            int room = limit - buffer.length();
+            if (length > room) {
+                buffer.append(chars, offset, Math.max(room, 0));
+                truncated = true;
+                throw LimitReachedException.INSTANCE;
+            }
+            buffer.append(chars, offset, length);
+        }
+
+        @Override
+        public void write(String value, int offset, int length) throws IOException {
+            int room = limit - buffer.length();
+            if (length > room) {
+                buffer.append(value, offset, offset + Math.max(room, 0));
+                truncated = true;
+                throw LimitReachedException.INSTANCE;
+            }
+            buffer.append(value, offset, offset + length);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public String toString() {
+            return buffer.toString();
+        }
+    }
+
+    /**
+     * 达到长度上限，无堆栈的共享实例
+     */
+    private static final class LimitReachedException extends IOException {
+
+        private static final LimitReachedException INSTANCE = new LimitReachedException();
+
+        private LimitReachedException() {
+            super("Audit value length limit reached");
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.max.cms.common.aspect;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.max.cms.common.annotation.Auditable;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 审计执行计划注册表
+ * 容器启动完成后扫描所有Bean中标注@Auditable的方法并预编译执行计划；
+ * 相同敏感字段集合的方法共享一个带脱敏序列化器的ObjectMapper，序列化器按类型只构建一次。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AuditPlanRegistry implements SmartInitializingSingleton {
+
+    private final ApplicationContext applicationContext;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 单个字段序列化后的最大字符数，超出部分截断
+     */
+    @Value("${audit.plan.max-field-length:8192}")
+    private int maxFieldLength;
+
+    private final Map<Method, AuditPlan> plans = new ConcurrentHashMap<>();
+
+    private final Map<Set<String>, ObjectMapper> maskingMappers = new ConcurrentHashMap<>();
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (String beanName : applicationContext.getBeanDefinitionNames()) {
+            Class<?> beanType = applicationContext.getType(beanName, false);
+            if (beanType == null) {
+                continue;
+            }
+            Map<Method, Auditable> methods = MethodIntrospector.selectMethods(ClassUtils.getUserClass(beanType),
+                    (MethodIntrospector.MetadataLookup<Auditable>) method ->
+                            AnnotatedElementUtils.findMergedAnnotation(method, Auditable.class));
+            methods.forEach(this::planFor);
+        }
+        log.info("Compiled {} audit plans", plans.size());
+    }
+
+    /**
+     * 获取方法的审计执行计划，未预编译时即时编译
+     */
+    AuditPlan planFor(Method method, Auditable auditable) {
+        AuditPlan plan = plans.get(method);
+        if (plan != null) {
+            return plan;
+        }
+        return plans.computeIfAbsent(method, m -> compile(m, auditable));
+    }
+
+    private AuditPlan compile(Method method, Auditable auditable) {
+        Set<String> sensitiveFields = Arrays.stream(auditable.sensitiveFields())
+                .map(field -> field.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+        ObjectMapper maskingMapper = maskingMappers.computeIfAbsent(sensitiveFields, this::createMaskingMapper);
+        return new AuditPlan(method, auditable, maskingMapper, sensitiveFields, maxFieldLength);
+    }
+
+    private ObjectMapper createMaskingMapper(Set<String> sensitiveFields) {
+        SimpleModule module = new SimpleModule("audit-masking");
+        module.setSerializerModifier(new MaskingSerializerModifier(sensitiveFields));
+        return objectMapper.copy()
+                .registerModule(module)
+                .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
+    }
+
+    /**
+     * 将敏感属性的写入器替换为输出掩码的写入器
+     */
+    private static class MaskingSerializerModifier extends BeanSerializerModifier {
+
+        private final Set<String> sensitiveFields;
+
+        MaskingSerializerModifier(Set<String> sensitiveFields) {
+            this.sensitiveFields = sensitiveFields;
+        }
+
+        @Override
+        public List<BeanPropertyWriter> changeProperties(SerializationConfig config, BeanDescription beanDesc,
+                                                         List<BeanPropertyWriter> beanProperties) {
+            for (int i = 0; i < beanProperties.size(); i++) {
+                BeanPropertyWriter writer = beanProperties.get(i);
+                if (sensitiveFields.contains(writer.getName().toLowerCase(Locale.ROOT))) {
+                    beanProperties.set(i, new MaskedPropertyWriter(writer));
+                }
+            }
+            return beanProperties;
+        }
+    }
+
+    private static class MaskedPropertyWriter extends BeanPropertyWriter {
+
+        MaskedPropertyWriter(BeanPropertyWriter base) {
+            super(base);
+        }
+
+        @Override
+        public void serializeAsField(Object bean, JsonGenerator gen, SerializerProvider prov) throws Exception {
+            gen.writeStringField(getName(), AuditPlan.MASK);
+        }
+    }
+}
@@ -3,22 +3,28 @@ package org.max.cms.common.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.max.cms.common.util.AuditContextTaskDecorator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
 
 /**
  * 审计功能配置类
- * 启用AOP、异步处理等功能
+ * 启用AOP、异步处理、定时任务（审计日志回放）等功能。
+ * 存在多个Executor时Spring Boot不再创建默认的applicationTaskExecutor，
+ * 因此通过AsyncConfigurer指定@Async使用带审计上下文传递的auditTaskExecutor
  */
 @Configuration
 @EnableAspectJAutoProxy
 @EnableAsync
-public class AuditConfig {
+@EnableScheduling
+public class AuditConfig implements AsyncConfigurer {
     
     /**
      * 配置ObjectMapper用于JSON序列化
@@ -39,11 +45,27 @@ public class AuditConfig {
         return mapper;
     }
     
+    /**
+     * 将调用方的审计上下文传递到线程池任务
+     */
+    @Bean
+    public AuditContextTaskDecorator auditContextTaskDecorator() {
+        return new AuditContextTaskDecorator();
+    }
+    
+    /**
+     * 指定@Async方法默认使用的执行器
+     */
+    @Override
+    public Executor getAsyncExecutor() {
+        return auditTaskExecutor(auditContextTaskDecorator());
+    }
+    
     /**
      * 配置异步执行器用于审计日志记录
      */
     @Bean("auditTaskExecutor")
-    public Executor auditTaskExecutor() {
+    public Executor auditTaskExecutor(AuditContextTaskDecorator auditContextTaskDecorator) {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         
         // 核心线程数
@@ -70,6 +92,9 @@ public class AuditConfig {
         // 等待时间
         executor.setAwaitTerminationSeconds(60);
         
+        // 传递链路追踪ID和用户身份
+        executor.setTaskDecorator(auditContextTaskDecorator);
+        
         executor.initialize();
         return executor;
     }
@@ -4,7 +4,12 @@ import com.baomidou.mybatisplus.annotation.DbType;
 import com.baomidou.mybatisplus.core.handlers.MetaObjectHandler;
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
 import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.ibatis.reflection.MetaObject;
+import org.max.cms.common.interceptor.AuditChangeInterceptor;
+import org.max.cms.common.interceptor.SqlStatementInnerInterceptor;
+import org.max.cms.common.interceptor.SqlTimingInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
@@ -18,10 +23,28 @@ public class MybatisPlusConfig {
     @Bean
     public MybatisPlusInterceptor mybatisPlusInterceptor() {
         MybatisPlusInterceptor interceptor = new MybatisPlusInterceptor();
+        // 放在分页之前，只统计业务语句，不含分页插件自动生成的count查询
+        interceptor.addInnerInterceptor(new SqlStatementInnerInterceptor());
         interceptor.addInnerInterceptor(new PaginationInnerInterceptor(DbType.POSTGRE_SQL));
         return interceptor;
     }
     
+    /**
+     * 审计变更拦截器：UPDATE类审计操作中通过RETURNING获取修改前后的行镜像
+     */
+    @Bean
+    public AuditChangeInterceptor auditChangeInterceptor() {
+        return new AuditChangeInterceptor();
+    }
+    
+    /**
+     * SQL耗时拦截器：按映射语句记录耗时，并累加每个请求内的数据库耗时
+     */
+    @Bean
+    public SqlTimingInterceptor sqlTimingInterceptor(ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        return new SqlTimingInterceptor(meterRegistryProvider);
+    }
+    
     @Bean
     public MetaObjectHandler metaObjectHandler() {
         return new MetaObjectHandler() {
@@ -0,0 +1,120 @@
+package org.max.cms.common.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.max.cms.common.repository.AuditLogRepository.AuditLogQuery;
+import org.max.cms.common.service.AuditLogQueryService;
+import org.max.cms.common.service.AuditLogQueryService.AuditLogPage;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 审计日志控制器
+ */
+@RestController
+@RequestMapping("/api/audit-logs")
+@RequiredArgsConstructor
+public class AuditLogController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final AuditLogQueryService auditLogQueryService;
+
+    /**
+     * 分页查询审计日志
+     * 使用上一页返回的nextCursor获取下一页
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> search(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String businessModule,
+            @RequestParam(required = false) String operationType,
+            @RequestParam(required = false) String targetType,
+            @RequestParam(required = false) String targetId,
+            @RequestParam(required = false) String riskLevel,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String traceId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTo) {
+
+        AuditLogQuery query = buildQuery(userId, username, businessModule, operationType, targetType, targetId,
+                riskLevel, status, traceId, startFrom, startTo);
+        AuditLogPage page = auditLogQueryService.search(query, cursor, size);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", page.records());
+        response.put("nextCursor", page.nextCursor());
+        response.put("size", size);
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 导出审计日志（NDJSON，每行一条记录）
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String businessModule,
+            @RequestParam(required = false) String operationType,
+            @RequestParam(required = false) String targetType,
+            @RequestParam(required = false) String targetId,
+            @RequestParam(required = false) String riskLevel,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String traceId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTo) {
+
+        // 在开始写出响应之前校验条件，以便返回400
+        AuditLogQuery query = auditLogQueryService.normalize(buildQuery(userId, username, businessModule,
+                operationType, targetType, targetId, riskLevel, status, traceId, startFrom, startTo));
+        StreamingResponseBody body = outputStream -> auditLogQueryService.export(query, outputStream);
+
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"audit-logs.ndjson\"")
+                .body(body);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleIllegalArgument(IllegalArgumentException e) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", e.getMessage());
+        return ResponseEntity.badRequest().body(response);
+    }
+
+    private static AuditLogQuery buildQuery(Long userId, String username, String businessModule, String operationType,
+                                            String targetType, String targetId, String riskLevel, String status,
+                                            String traceId, LocalDateTime startFrom, LocalDateTime startTo) {
+        AuditLogQuery query = new AuditLogQuery();
+        query.setUserId(userId);
+        query.setUsername(username);
+        query.setBusinessModule(businessModule);
+        query.setOperationType(operationType);
+        query.setTargetType(targetType);
+        query.setTargetId(targetId);
+        query.setRiskLevel(riskLevel);
+        query.setStatus(status);
+        query.setTraceId(traceId);
+        query.setStartFrom(startFrom);
+        query.setStartTo(startTo);
+        return query;
+    }
+}
@@ -0,0 +1,130 @@
+package org.max.cms.common.endpoint;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.max.cms.common.util.RequestTiming;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SQL诊断端点
+ * 请求结束时检查同一映射语句在单个请求内的执行次数，达到阈值即视为N+1查询，
+ * 记录到指标cms.sql.repeated并在/actuator/sqldiagnostics中按出现次数列出。
+ */
+@Component
+@Endpoint(id = "sqldiagnostics")
+@RequiredArgsConstructor
+public class SqlDiagnosticsEndpoint {
+
+    /**
+     * 最多保留的N+1记录数，超出后不再新增
+     */
+    private static final int MAX_FINDINGS = 500;
+
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    /**
+     * 单个请求内同一映射语句执行次数达到该值时视为N+1
+     */
+    @Value("${monitoring.sql.repeat-threshold:10}")
+    private int repeatThreshold;
+
+    private final Map<FindingKey, Finding> findings = new ConcurrentHashMap<>();
+    private final Map<FindingKey, Counter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * 检查一次请求内的语句执行次数
+     */
+    public void inspect(String route, String method, RequestTiming timing) {
+        Map<String, Integer> statementCounts = timing.getStatementCounts();
+        if (timing.getStatements() < repeatThreshold || statementCounts.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<String, Integer> entry : statementCounts.entrySet()) {
+            if (entry.getValue() >= repeatThreshold) {
+                report(new FindingKey(route, method, entry.getKey()), entry.getValue());
+            }
+        }
+    }
+
+    private void report(FindingKey key, int repeats) {
+        Finding finding = findings.get(key);
+        if (finding == null && findings.size() < MAX_FINDINGS) {
+            finding = findings.computeIfAbsent(key, k -> new Finding());
+        }
+        if (finding != null) {
+            finding.record(repeats);
+        }
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (meterRegistry != null) {
+            counters.computeIfAbsent(key, k -> Counter.builder("cms.sql.repeated")
+                            .description("存在N+1查询的请求数")
+                            .tag("uri", k.route())
+                            .tag("method", k.method())
+                            .tag("statement", k.statement())
+                            .register(meterRegistry))
+                    .increment();
+        }
+    }
+
+    /**
+     * 列出N+1记录，按出现的请求数倒序
+     */
+    @ReadOperation
+    public SqlDiagnostics diagnostics() {
+        List<RepeatedStatement> repeated = findings.entrySet().stream()
+                .map(entry -> entry.getValue().snapshot(entry.getKey()))
+                .sorted(Comparator.comparingLong(RepeatedStatement::requests).reversed())
+                .toList();
+        return new SqlDiagnostics(repeatThreshold, repeated);
+    }
+
+    /**
+     * 清空N+1记录
+     */
+    @DeleteOperation
+    public void reset() {
+        findings.clear();
+    }
+
+    public record SqlDiagnostics(int repeatThreshold, List<RepeatedStatement> repeatedStatements) {
+    }
+
+    public record RepeatedStatement(String route, String method, String statement, long requests,
+                                    int maxRepeats, int lastRepeats, Instant lastSeen) {
+    }
+
+    private record FindingKey(String route, String method, String statement) {
+    }
+
+    private static final class Finding {
+
+        private long requests;
+        private int maxRepeats;
+        private int lastRepeats;
+        private Instant lastSeen;
+
+        synchronized void record(int repeats) {
+            requests++;
+            maxRepeats = Math.max(maxRepeats, repeats);
+            lastRepeats = repeats;
+            lastSeen = Instant.now();
+        }
+
+        synchronized RepeatedStatement snapshot(FindingKey key) {
+            return new RepeatedStatement(key.route(), key.method(), key.statement(), requests,
+                    maxRepeats, lastRepeats, lastSeen);
+        }
+    }
+}
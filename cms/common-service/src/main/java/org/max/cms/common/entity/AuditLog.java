@@ -0,0 +1,144 @@
+package org.max.cms.common.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 审计日志实体
+ */
+@Data
+@TableName("audit_logs")
+public class AuditLog {
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 操作类型: CREATE, UPDATE, DELETE, LOGIN, LOGOUT, QUERY等
+     */
+    private String operationType;
+
+    /**
+     * 操作名称
+     */
+    private String operationName;
+
+    /**
+     * 操作描述
+     */
+    private String operationDesc;
+
+    /**
+     * HTTP方法
+     */
+    private String requestMethod;
+
+    /**
+     * 请求URL
+     */
+    private String requestUrl;
+
+    /**
+     * 请求参数(JSON格式)
+     */
+    private String requestParams;
+
+    /**
+     * 请求体(JSON格式)
+     */
+    private String requestBody;
+
+    /**
+     * 请求头(JSON格式)
+     */
+    private String requestHeaders;
+
+    /**
+     * HTTP响应状态码
+     */
+    private Integer responseStatus;
+
+    /**
+     * 响应体(JSON格式)
+     */
+    private String responseBody;
+
+    /**
+     * 响应时间(毫秒)
+     */
+    private Long responseTime;
+
+    /**
+     * 业务模块
+     */
+    private String businessModule;
+
+    /**
+     * 目标对象类型
+     */
+    private String targetType;
+
+    /**
+     * 目标对象ID
+     */
+    private String targetId;
+
+    /**
+     * 目标对象名称
+     */
+    private String targetName;
+
+    /**
+     * 修改前的值(JSON格式)
+     */
+    private String oldValues;
+
+    /**
+     * 修改后的值(JSON格式)
+     */
+    private String newValues;
+
+    /**
+     * 变更字段列表(JSON数组)
+     */
+    private String changedFields;
+
+    private Long userId;
+    private String username;
+    private String userRealName;
+    private String ipAddress;
+    private String userAgent;
+    private String sessionId;
+
+    private String serverName;
+    private String threadId;
+    private String traceId;
+
+    /**
+     * 操作状态: SUCCESS, FAILED, PARTIAL
+     */
+    private String status;
+
+    private String errorMessage;
+
+    /**
+     * 风险级别: LOW, MEDIUM, HIGH, CRITICAL
+     */
+    private String riskLevel;
+
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+
+    /**
+     * 操作日期(用于分区查询)
+     */
+    private LocalDate operationDate;
+
+    private LocalDateTime createdAt;
+    private String createdBy;
+}
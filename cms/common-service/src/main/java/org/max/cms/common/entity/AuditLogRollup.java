@@ -0,0 +1,56 @@
+package org.max.cms.common.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 审计事件每分钟汇总实体
+ */
+@Data
+@TableName("audit_log_rollups")
+public class AuditLogRollup {
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 所属分钟
+     */
+    private LocalDateTime bucketStart;
+
+    private String operationType;
+
+    private String businessModule;
+
+    private String operationName;
+
+    /**
+     * 事件总数
+     */
+    private Long eventCount;
+
+    /**
+     * 其中逐条写入audit_logs的抽样事件数
+     */
+    private Long sampledCount;
+
+    /**
+     * 去重用户数
+     */
+    private Integer distinctUsers;
+
+    /**
+     * 响应时间分位数（毫秒）
+     */
+    private Long responseTimeP50;
+
+    private Long responseTimeP99;
+
+    private Long responseTimeMax;
+
+    private LocalDateTime createdAt;
+}
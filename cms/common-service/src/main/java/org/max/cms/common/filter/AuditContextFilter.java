@@ -0,0 +1,36 @@
+package org.max.cms.common.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.max.cms.common.util.AuditContextHolder;
+import org.max.cms.common.util.AuditContextHolder.AuditContext;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * 审计上下文过滤器
+ * 在安全过滤器之前为每个请求绑定审计上下文并回写链路追踪ID，请求结束时无论成功与否都清除上下文
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class AuditContextFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        AuditContext context = AuditContextHolder.newContext(request.getHeader(AuditContextHolder.TRACE_ID_HEADER));
+        response.setHeader(AuditContextHolder.TRACE_ID_HEADER, context.getTraceId());
+        AuditContextHolder.setContext(context);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            AuditContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package org.max.cms.common.filter;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.max.cms.common.endpoint.SqlDiagnosticsEndpoint;
+import org.max.cms.common.util.RequestTiming;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求计时过滤器
+ * 按路由模板、HTTP方法和响应状态记录请求耗时直方图，并按路由记录请求内的数据库耗时和SQL条数，
+ * 发布到Micrometer，同时交给SQL诊断端点检查N+1查询。未匹配到路由的请求统一记为UNKNOWN，避免按原始路径产生过多的指标。
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@RequiredArgsConstructor
+public class RequestTimingFilter extends OncePerRequestFilter {
+
+    private static final String UNKNOWN_ROUTE = "UNKNOWN";
+
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+    private final SqlDiagnosticsEndpoint sqlDiagnosticsEndpoint;
+
+    @Value("${monitoring.request-timing.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 是否发布直方图桶，供监控系统跨实例聚合分位数
+     */
+    @Value("${monitoring.request-timing.percentile-histogram:true}")
+    private boolean percentileHistogram;
+
+    private final Map<RequestKey, Timer> requestTimers = new ConcurrentHashMap<>();
+    private final Map<RouteKey, RouteMeters> routeMeters = new ConcurrentHashMap<>();
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || meterRegistryProvider.getIfAvailable() == null
+                || request.getRequestURI().startsWith(request.getContextPath() + "/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        RequestTiming timing = RequestTiming.begin();
+        boolean failed = false;
+        try {
+            filterChain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            failed = true;
+            throw e;
+        } finally {
+            RequestTiming.end();
+            if (request.isAsyncStarted()) {
+                // 异步请求在完成时记录总耗时，数据库耗时只包含请求线程内的部分
+                boolean failedBeforeAsync = failed;
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        record(request, response, start, timing, failedBeforeAsync);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                record(request, response, start, timing, failed);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, HttpServletResponse response, long start,
+                        RequestTiming timing, boolean failed) {
+        long elapsed = System.nanoTime() - start;
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String route = pattern != null ? pattern.toString() : UNKNOWN_ROUTE;
+        sqlDiagnosticsEndpoint.inspect(route, request.getMethod(), timing);
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (meterRegistry == null) {
+            return;
+        }
+        int status = failed && response.getStatus() < 400 ? 500 : response.getStatus();
+
+        RequestKey requestKey = new RequestKey(route, request.getMethod(), status);
+        requestTimers.computeIfAbsent(requestKey, key -> Timer.builder("cms.http.requests")
+                        .description("按路由模板统计的请求耗时")
+                        .tag("uri", key.route())
+                        .tag("method", key.method())
+                        .tag("status", Integer.toString(key.status()))
+                        .publishPercentileHistogram(percentileHistogram)
+                        .register(meterRegistry))
+                .record(elapsed, TimeUnit.NANOSECONDS);
+
+        RouteMeters meters = routeMeters.computeIfAbsent(new RouteKey(route, request.getMethod()),
+                key -> new RouteMeters(
+                        Timer.builder("cms.http.requests.db")
+                                .description("单个请求内的数据库耗时")
+                                .tag("uri", key.route())
+                                .tag("method", key.method())
+                                .publishPercentileHistogram(percentileHistogram)
+                                .register(meterRegistry),
+                        DistributionSummary.builder("cms.http.requests.statements")
+                                .description("单个请求执行的SQL条数")
+                                .tag("uri", key.route())
+                                .tag("method", key.method())
+                                .register(meterRegistry)));
+        meters.databaseTimer().record(timing.getDatabaseNanos(), TimeUnit.NANOSECONDS);
+        meters.statements().record(timing.getStatements());
+    }
+
+    private record RequestKey(String route, String method, int status) {
+    }
+
+    private record RouteKey(String route, String method) {
+    }
+
+    private record RouteMeters(Timer databaseTimer, DistributionSummary statements) {
+    }
+}
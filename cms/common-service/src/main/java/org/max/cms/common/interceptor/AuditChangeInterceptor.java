@@ -0,0 +1,162 @@
+package org.max.cms.common.interceptor;
+
+import com.baomidou.mybatisplus.core.metadata.TableInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.baomidou.mybatisplus.core.toolkit.PluginUtils;
+import com.baomidou.mybatisplus.extension.parser.JsqlParserGlobal;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import net.sf.jsqlparser.statement.update.Update;
+import net.sf.jsqlparser.statement.update.UpdateSet;
+import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.max.cms.common.util.AuditChangeCapture;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 审计变更拦截器
+ * 审计变更捕获范围内执行单表UPDATE时，将语句改写为PostgreSQL的
+ * UPDATE ... FROM (SELECT ... FOR UPDATE) ... RETURNING 形式，
+ * 在同一条语句中返回每行修改前后的镜像，不产生额外的查询往返。
+ * 无法安全改写的语句按原样执行。
+ */
+@Slf4j
+@Intercepts({
+    @Signature(type = StatementHandler.class, method = "update", args = {Statement.class})
+})
+public class AuditChangeInterceptor implements Interceptor {
+
+    private static final int MAX_CACHED_STATEMENTS = 1024;
+
+    private static final Rewrite NOT_REWRITABLE = new Rewrite(null, null, 0, 0);
+
+    /**
+     * 原始SQL到改写结果的缓存，超出容量时淘汰不常用的语句
+     */
+    private final Cache<String, Rewrite> rewrites = Caffeine.newBuilder()
+            .maximumSize(MAX_CACHED_STATEMENTS)
+            .build();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        if (!AuditChangeCapture.isActive()) {
+            return invocation.proceed();
+        }
+        StatementHandler handler = PluginUtils.realTarget(invocation.getTarget());
+        PluginUtils.MPStatementHandler mpHandler = PluginUtils.mpStatementHandler(handler);
+        MappedStatement ms = mpHandler.mappedStatement();
+        if (ms.getSqlCommandType() != SqlCommandType.UPDATE || ms.getStatementType() != StatementType.PREPARED) {
+            return invocation.proceed();
+        }
+        BoundSql boundSql = mpHandler.boundSql();
+        Rewrite rewrite = rewrites.get(boundSql.getSql(), AuditChangeInterceptor::buildRewrite);
+        if (rewrite == NOT_REWRITABLE
+                || rewrite.setParameters() + rewrite.whereParameters() != boundSql.getParameterMappings().size()) {
+            return invocation.proceed();
+        }
+
+        BoundSql rewritten = rewrite.bind(ms, boundSql);
+        ParameterHandler parameterHandler = ms.getLang()
+                .createParameterHandler(ms, boundSql.getParameterObject(), rewritten);
+        Connection connection = ((Statement) invocation.getArgs()[0]).getConnection();
+        try (PreparedStatement statement = connection.prepareStatement(rewrite.sql())) {
+            parameterHandler.setParameters(statement);
+            statement.execute();
+            int rows = 0;
+            try (ResultSet resultSet = statement.getResultSet()) {
+                while (resultSet.next()) {
+                    rows++;
+                    AuditChangeCapture.record(rewrite.table(), resultSet.getString(1), resultSet.getString(2));
+                }
+            }
+            return rows;
+        }
+    }
+
+    private static Rewrite buildRewrite(String sql) {
+        Update update;
+        try {
+            if (!(JsqlParserGlobal.parse(sql) instanceof Update parsed)) {
+                return NOT_REWRITABLE;
+            }
+            update = parsed;
+        } catch (Exception e) {
+            log.debug("Unable to parse update for audit change capture: {}", sql, e);
+            return NOT_REWRITABLE;
+        }
+        // 只改写不带模式名、别名、FROM、JOIN、RETURNING的单表条件更新
+        if (update.getWhere() == null || update.getTable().getAlias() != null
+                || update.getTable().getSchemaName() != null || update.getFromItem() != null
+                || update.getJoins() != null || update.getStartJoins() != null || update.getWithItemsList() != null
+                || update.getReturningClause() != null) {
+            return NOT_REWRITABLE;
+        }
+        String table = update.getTable().getName();
+        TableInfo tableInfo = TableInfoHelper.getTableInfo(table);
+        if (tableInfo == null || tableInfo.getKeyColumn() == null) {
+            return NOT_REWRITABLE;
+        }
+
+        String sets = UpdateSet.appendUpdateSetsTo(new StringBuilder(), update.getUpdateSets()).toString();
+        String where = update.getWhere().toString();
+        String key = tableInfo.getKeyColumn();
+        String rewritten = "UPDATE " + table + " SET " + sets
+                + " FROM (SELECT " + key + " AS audit_pk, row_to_json(" + table + ")::text AS audit_old_row"
+                + " FROM " + table + " WHERE " + where + " FOR UPDATE) audit_old"
+                + " WHERE (" + where + ") AND " + table + "." + key + " = audit_old.audit_pk"
+                + " RETURNING audit_old.audit_old_row, row_to_json(" + table + ")::text";
+        return new Rewrite(rewritten, tableInfo.getTableName(), countParameters(sets), countParameters(where));
+    }
+
+    /**
+     * 统计引号外的占位符个数
+     */
+    private static int countParameters(String sql) {
+        int count = 0;
+        boolean quoted = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                quoted = !quoted;
+            } else if (c == '?' && !quoted) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 改写后的语句：占位符顺序为 SET、子查询WHERE、外层WHERE
+     */
+    private record Rewrite(String sql, String table, int setParameters, int whereParameters) {
+
+        BoundSql bind(MappedStatement ms, BoundSql original) {
+            List<ParameterMapping> mappings = original.getParameterMappings();
+            List<ParameterMapping> whereMappings = mappings.subList(setParameters, mappings.size());
+            List<ParameterMapping> rewrittenMappings = new ArrayList<>(mappings.size() + whereMappings.size());
+            rewrittenMappings.addAll(mappings.subList(0, setParameters));
+            rewrittenMappings.addAll(whereMappings);
+            rewrittenMappings.addAll(whereMappings);
+
+            BoundSql boundSql = new BoundSql(ms.getConfiguration(), sql, rewrittenMappings, original.getParameterObject());
+            PluginUtils.mpBoundSql(original).additionalParameters().forEach(boundSql::setAdditionalParameter);
+            return boundSql;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package org.max.cms.common.interceptor;
+
+import com.baomidou.mybatisplus.extension.plugins.inner.InnerInterceptor;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.max.cms.common.util.RequestTiming;
+
+/**
+ * 映射语句计数内部拦截器
+ * 按映射语句ID统计当前请求内的执行次数，请求结束时由SqlDiagnosticsEndpoint判断是否存在N+1查询。
+ * 只做一次HashMap累加，不解析SQL。
+ */
+public class SqlStatementInnerInterceptor implements InnerInterceptor {
+
+    @Override
+    public void beforeQuery(Executor executor, MappedStatement ms, Object parameter, RowBounds rowBounds,
+                            ResultHandler resultHandler, BoundSql boundSql) {
+        RequestTiming.countStatement(ms.getId());
+    }
+
+    @Override
+    public void beforeUpdate(Executor executor, MappedStatement ms, Object parameter) {
+        RequestTiming.countStatement(ms.getId());
+    }
+}
@@ -0,0 +1,68 @@
+package org.max.cms.common.interceptor;
+
+import com.baomidou.mybatisplus.core.toolkit.PluginUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.max.cms.common.util.RequestTiming;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SQL耗时拦截器
+ * 统计StatementHandler执行语句（含结果集映射）的耗时，按映射语句发布到Micrometer并累加到当前请求，
+ * 游标查询只统计首次执行，后续分批获取的时间不计入。
+ */
+@Intercepts({
+    @Signature(type = StatementHandler.class, method = "query", args = {Statement.class, ResultHandler.class}),
+    @Signature(type = StatementHandler.class, method = "queryCursor", args = {Statement.class}),
+    @Signature(type = StatementHandler.class, method = "update", args = {Statement.class}),
+    @Signature(type = StatementHandler.class, method = "batch", args = {Statement.class})
+})
+@RequiredArgsConstructor
+public class SqlTimingInterceptor implements Interceptor {
+
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private final Map<String, Timer> statementTimers = new ConcurrentHashMap<>();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            RequestTiming.recordStatement(elapsed);
+            Timer timer = timerFor(invocation);
+            if (timer != null) {
+                timer.record(elapsed, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private Timer timerFor(Invocation invocation) {
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (meterRegistry == null) {
+            return null;
+        }
+        StatementHandler handler = PluginUtils.realTarget(invocation.getTarget());
+        MappedStatement ms = PluginUtils.mpStatementHandler(handler).mappedStatement();
+        return statementTimers.computeIfAbsent(ms.getId(), id -> Timer.builder("cms.sql.statements")
+                .description("按映射语句统计的SQL执行耗时")
+                .tag("statement", id)
+                .tag("command", ms.getSqlCommandType().name())
+                .register(meterRegistry));
+    }
+}
@@ -0,0 +1,145 @@
+package org.max.cms.common.repository;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import lombok.Data;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.max.cms.common.entity.AuditLog;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 审计日志数据访问层
+ */
+@Mapper
+public interface AuditLogRepository extends BaseMapper<AuditLog> {
+
+    /**
+     * 每行绑定的参数个数，PostgreSQL单条语句最多允许32767个绑定参数
+     */
+    int PARAMETERS_PER_ROW = 35;
+
+    /**
+     * 多行批量插入审计日志
+     */
+    @Insert({
+        "<script>",
+        "INSERT INTO audit_logs (",
+        "  operation_type, operation_name, operation_desc,",
+        "  request_method, request_url, request_params, request_body, request_headers,",
+        "  response_status, response_body, response_time,",
+        "  business_module, target_type, target_id, target_name,",
+        "  old_values, new_values, changed_fields,",
+        "  user_id, username, user_real_name, ip_address, user_agent, session_id,",
+        "  server_name, thread_id, trace_id,",
+        "  status, error_message, risk_level,",
+        "  start_time, end_time, operation_date, created_at, created_by",
+        ") VALUES",
+        "<foreach collection='logs' item='log' separator=','>",
+        "(",
+        "  #{log.operationType}, #{log.operationName}, #{log.operationDesc},",
+        "  #{log.requestMethod}, #{log.requestUrl}, #{log.requestParams}, #{log.requestBody}, #{log.requestHeaders},",
+        "  #{log.responseStatus}, #{log.responseBody}, #{log.responseTime},",
+        "  #{log.businessModule}, #{log.targetType}, #{log.targetId}, #{log.targetName},",
+        "  #{log.oldValues}, #{log.newValues}, #{log.changedFields},",
+        "  #{log.userId}, #{log.username}, #{log.userRealName}, #{log.ipAddress}, #{log.userAgent}, #{log.sessionId},",
+        "  #{log.serverName}, #{log.threadId}, #{log.traceId},",
+        "  #{log.status}, #{log.errorMessage}, #{log.riskLevel},",
+        "  #{log.startTime}, #{log.endTime}, #{log.operationDate},",
+        "  COALESCE(#{log.createdAt}, NOW()), COALESCE(#{log.createdBy}, 'system')",
+        ")",
+        "</foreach>",
+        "</script>"
+    })
+    int insertBatch(@Param("logs") List<AuditLog> logs);
+
+    /**
+     * 查询条件片段：时间窗口同时换算为operation_date条件以裁剪分区，
+     * 游标条件按(start_time, id)行比较实现键集分页
+     */
+    String QUERY_CONDITIONS = ""
+        + "WHERE operation_date &gt;= #{query.fromDate} AND operation_date &lt;= #{query.toDate}"
+        + "  AND start_time &gt;= #{query.startFrom} AND start_time &lt; #{query.startTo}"
+        + "<if test='query.cursorStartTime != null and query.cursorId != null'>"
+        + "  AND (start_time, id) &lt; (#{query.cursorStartTime}, #{query.cursorId})"
+        + "</if>"
+        + "<if test='query.userId != null'> AND user_id = #{query.userId}</if>"
+        + "<if test='query.username != null and query.username != \"\"'> AND username = #{query.username}</if>"
+        + "<if test='query.businessModule != null and query.businessModule != \"\"'> AND business_module = #{query.businessModule}</if>"
+        + "<if test='query.operationType != null and query.operationType != \"\"'> AND operation_type = #{query.operationType}</if>"
+        + "<if test='query.targetType != null and query.targetType != \"\"'> AND target_type = #{query.targetType}</if>"
+        + "<if test='query.targetId != null and query.targetId != \"\"'> AND target_id = #{query.targetId}</if>"
+        + "<if test='query.riskLevel != null and query.riskLevel != \"\"'> AND risk_level = #{query.riskLevel}</if>"
+        + "<if test='query.status != null and query.status != \"\"'> AND status = #{query.status}</if>"
+        + "<if test='query.traceId != null and query.traceId != \"\"'> AND trace_id = #{query.traceId}</if>";
+
+    /**
+     * 键集分页查询审计日志，按开始时间倒序
+     */
+    @Select({
+        "<script>",
+        "SELECT * FROM audit_logs",
+        QUERY_CONDITIONS,
+        "ORDER BY start_time DESC, id DESC",
+        "LIMIT #{limit}",
+        "</script>"
+    })
+    List<AuditLog> selectByQuery(@Param("query") AuditLogQuery query, @Param("limit") int limit);
+
+    /**
+     * 以游标方式流式读取审计日志，需要在事务内使用以启用服务端分批获取
+     */
+    @Select({
+        "<script>",
+        "SELECT * FROM audit_logs",
+        QUERY_CONDITIONS,
+        "ORDER BY start_time DESC, id DESC",
+        "</script>"
+    })
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = 1000)
+    Cursor<AuditLog> streamByQuery(@Param("query") AuditLogQuery query);
+
+    /**
+     * 审计日志查询条件类
+     */
+    @Data
+    class AuditLogQuery {
+        private Long userId;
+        private String username;
+        private String businessModule;
+        private String operationType;
+        private String targetType;
+        private String targetId;
+        private String riskLevel;
+        private String status;
+        private String traceId;
+
+        /**
+         * 开始时间窗口 [startFrom, startTo)
+         */
+        private LocalDateTime startFrom;
+        private LocalDateTime startTo;
+
+        /**
+         * 上一页最后一条记录的开始时间和ID
+         */
+        private LocalDateTime cursorStartTime;
+        private Long cursorId;
+
+        public LocalDate getFromDate() {
+            return startFrom.toLocalDate();
+        }
+
+        public LocalDate getToDate() {
+            LocalDateTime upper = cursorStartTime != null && cursorStartTime.isBefore(startTo) ? cursorStartTime : startTo;
+            return upper.toLocalDate();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.max.cms.common.repository;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.max.cms.common.entity.AuditLogRollup;
+
+import java.util.List;
+
+/**
+ * 审计事件汇总数据访问层
+ */
+@Mapper
+public interface AuditLogRollupRepository extends BaseMapper<AuditLogRollup> {
+
+    /**
+     * 多行批量插入汇总记录
+     */
+    @Insert({
+        "<script>",
+        "INSERT INTO audit_log_rollups (",
+        "  bucket_start, operation_type, business_module, operation_name,",
+        "  event_count, sampled_count, distinct_users,",
+        "  response_time_p50, response_time_p99, response_time_max",
+        ") VALUES",
+        "<foreach collection='rollups' item='rollup' separator=','>",
+        "(",
+        "  #{rollup.bucketStart}, #{rollup.operationType}, #{rollup.businessModule}, #{rollup.operationName},",
+        "  #{rollup.eventCount}, #{rollup.sampledCount}, #{rollup.distinctUsers},",
+        "  #{rollup.responseTimeP50}, #{rollup.responseTimeP99}, #{rollup.responseTimeMax}",
+        ")",
+        "</foreach>",
+        "</script>"
+    })
+    int insertBatch(@Param("rollups") List<AuditLogRollup> rollups);
+}
@@ -0,0 +1,47 @@
+package org.max.cms.common.repository;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 审计日志分区管理数据访问层
+ * 分区名由分区管理器按固定格式生成，不接受外部输入
+ */
+@Mapper
+public interface AuditPartitionRepository {
+
+    /**
+     * 查询audit_logs当前挂载的分区
+     */
+    @Select({
+        "SELECT c.relname FROM pg_inherits i",
+        "INNER JOIN pg_class c ON c.oid = i.inhrelid",
+        "INNER JOIN pg_class p ON p.oid = i.inhparent",
+        "WHERE p.relname = 'audit_logs'",
+        "ORDER BY c.relname"
+    })
+    List<String> selectPartitionNames();
+
+    /**
+     * 创建范围分区 [from, to)
+     */
+    @Update("CREATE TABLE IF NOT EXISTS ${name} PARTITION OF audit_logs FOR VALUES FROM ('${from}') TO ('${to}')")
+    void createPartition(@Param("name") String name, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * 卸载分区，卸载后成为普通表，可归档后删除
+     */
+    @Update("ALTER TABLE audit_logs DETACH PARTITION ${name}")
+    void detachPartition(@Param("name") String name);
+
+    /**
+     * 删除已卸载的分区表
+     */
+    @Update("DROP TABLE IF EXISTS ${name}")
+    void dropTable(@Param("name") String name);
+}
@@ -0,0 +1,17 @@
+package org.max.cms.common.service;
+
+import org.max.cms.common.entity.AuditLog;
+
+/**
+ * 审计日志本地转存
+ * 内存缓冲区已满或数据库写入失败时，用于暂存审计事件，待数据库恢复后回放
+ */
+public interface AuditJournal {
+
+    /**
+     * 追加审计事件
+     *
+     * @return 是否已持久化到转存介质
+     */
+    boolean append(AuditLog auditLog);
+}
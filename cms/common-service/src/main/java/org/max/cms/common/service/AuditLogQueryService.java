@@ -0,0 +1,41 @@
+package org.max.cms.common.service;
+
+import org.max.cms.common.entity.AuditLog;
+import org.max.cms.common.repository.AuditLogRepository.AuditLogQuery;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * 审计日志查询服务接口
+ */
+public interface AuditLogQueryService {
+
+    /**
+     * 补全默认时间窗口并校验查询条件，条件无效时抛出IllegalArgumentException
+     */
+    AuditLogQuery normalize(AuditLogQuery query);
+
+    /**
+     * 键集分页查询审计日志
+     *
+     * @param query  查询条件，未指定时间窗口时使用默认窗口
+     * @param cursor 上一页返回的游标，首页为空
+     * @param size   每页条数
+     */
+    AuditLogPage search(AuditLogQuery query, String cursor, int size);
+
+    /**
+     * 以NDJSON格式流式导出审计日志，每行一条记录
+     */
+    void export(AuditLogQuery query, OutputStream outputStream) throws IOException;
+
+    /**
+     * 审计日志分页结果
+     *
+     * @param nextCursor 下一页游标，没有更多数据时为空
+     */
+    record AuditLogPage(List<AuditLog> records, String nextCursor) {
+    }
+}
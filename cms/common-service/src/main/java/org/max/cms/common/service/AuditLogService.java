@@ -0,0 +1,17 @@
+package org.max.cms.common.service;
+
+import org.max.cms.common.entity.AuditLog;
+
+/**
+ * 审计日志服务接口
+ */
+public interface AuditLogService {
+
+    /**
+     * 记录审计日志
+     *
+     * @param auditLog 审计日志
+     * @param async    为true时写入内存缓冲区由后台批量持久化；为false时在当前线程同步写入数据库
+     */
+    void record(AuditLog auditLog, boolean async);
+}
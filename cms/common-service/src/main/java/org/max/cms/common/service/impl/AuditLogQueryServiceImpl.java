@@ -0,0 +1,123 @@
+package org.max.cms.common.service.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.max.cms.common.entity.AuditLog;
+import org.max.cms.common.repository.AuditLogRepository;
+import org.max.cms.common.repository.AuditLogRepository.AuditLogQuery;
+import org.max.cms.common.service.AuditLogQueryService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * 审计日志查询服务实现类
+ * 按(start_time, id)键集分页，翻页代价与页码无关；导出使用数据库游标逐行写出，不在内存中聚集结果
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class AuditLogQueryServiceImpl implements AuditLogQueryService {
+
+    private static final byte NEWLINE = '\n';
+
+    private final AuditLogRepository auditLogRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 未指定开始时间时向前查询的时间范围
+     */
+    @Value("${audit.query.default-window:7d}")
+    private Duration defaultWindow;
+
+    /**
+     * 单次查询允许的最大时间范围，限制需要扫描的分区数
+     */
+    @Value("${audit.query.max-window:366d}")
+    private Duration maxWindow;
+
+    @Value("${audit.query.max-page-size:200}")
+    private int maxPageSize;
+
+    @Override
+    public AuditLogPage search(AuditLogQuery query, String cursor, int size) {
+        Assert.isTrue(size > 0 && size <= maxPageSize, "每页条数必须在1到" + maxPageSize + "之间");
+        normalize(query);
+        applyCursor(query, cursor);
+
+        // 多取一条用于判断是否还有下一页
+        List<AuditLog> records = auditLogRepository.selectByQuery(query, size + 1);
+        if (records.size() <= size) {
+            return new AuditLogPage(records, null);
+        }
+        List<AuditLog> page = records.subList(0, size);
+        AuditLog last = page.get(size - 1);
+        return new AuditLogPage(page, encodeCursor(last.getStartTime(), last.getId()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void export(AuditLogQuery query, OutputStream outputStream) throws IOException {
+        normalize(query);
+        ObjectWriter writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        OutputStream out = new BufferedOutputStream(outputStream, 64 * 1024);
+        long count = 0;
+        try (Cursor<AuditLog> cursor = auditLogRepository.streamByQuery(query)) {
+            for (AuditLog auditLog : cursor) {
+                writer.writeValue(out, auditLog);
+                out.write(NEWLINE);
+                count++;
+            }
+        }
+        out.flush();
+        log.info("Exported {} audit logs between {} and {}", count, query.getStartFrom(), query.getStartTo());
+    }
+
+    @Override
+    public AuditLogQuery normalize(AuditLogQuery query) {
+        if (query.getStartTo() == null) {
+            query.setStartTo(LocalDateTime.now().plusSeconds(1));
+        }
+        if (query.getStartFrom() == null) {
+            query.setStartFrom(query.getStartTo().minus(defaultWindow));
+        }
+        Assert.isTrue(query.getStartFrom().isBefore(query.getStartTo()), "开始时间必须早于结束时间");
+        Assert.isTrue(!query.getStartFrom().plus(maxWindow).isBefore(query.getStartTo()),
+                "查询时间范围不能超过" + maxWindow.toDays() + "天");
+        return query;
+    }
+
+    private static void applyCursor(AuditLogQuery query, String cursor) {
+        if (!StringUtils.hasText(cursor)) {
+            return;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.lastIndexOf('|');
+            query.setCursorStartTime(LocalDateTime.parse(decoded.substring(0, separator)));
+            query.setCursorId(Long.parseLong(decoded.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("无效的分页游标", e);
+        }
+    }
+
+    private static String encodeCursor(LocalDateTime startTime, Long id) {
+        String value = startTime + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
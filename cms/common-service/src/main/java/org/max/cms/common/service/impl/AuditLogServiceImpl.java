@@ -0,0 +1,349 @@
+package org.max.cms.common.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.max.cms.common.entity.AuditLog;
+import org.max.cms.common.repository.AuditLogRepository;
+import org.max.cms.common.service.AuditJournal;
+import org.max.cms.common.service.AuditLogService;
+import org.max.cms.common.util.DataAccessErrors;
+import org.max.cms.common.util.MpscRingBuffer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 审计日志服务实现类
+ * 异步事件写入有界无锁环形缓冲区，由单个后台线程按批量大小或时间间隔刷新为多行INSERT。
+ * 缓冲区满时按事件风险级别选择背压策略：丢弃、等待或转存到本地日志。
+ * 命中汇总规则的异步低风险事件先交给汇总器，只写入分钟汇总。
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class AuditLogServiceImpl implements AuditLogService {
+
+    /**
+     * 单条INSERT允许的最大行数，受PostgreSQL绑定参数个数上限约束
+     */
+    private static final int MAX_BATCH_SIZE = Short.MAX_VALUE / AuditLogRepository.PARAMETERS_PER_ROW;
+
+    /**
+     * BLOCK策略下等待缓冲区空位的轮询间隔
+     */
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    private final AuditLogRepository auditLogRepository;
+    private final AuditRollupAggregator auditRollupAggregator;
+    private final ObjectProvider<AuditJournal> auditJournalProvider;
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    @Value("${audit.writer.buffer-size:8192}")
+    private int bufferSize;
+
+    @Value("${audit.writer.batch-size:200}")
+    private int batchSize;
+
+    @Value("${audit.writer.flush-interval:1s}")
+    private Duration flushInterval;
+
+    @Value("${audit.writer.block-timeout:2s}")
+    private Duration blockTimeout;
+
+    @Value("${audit.writer.database-retry-interval:5s}")
+    private Duration databaseRetryInterval;
+
+    @Value("${audit.writer.overflow.low:DROP}")
+    private OverflowPolicy lowRiskPolicy;
+
+    @Value("${audit.writer.overflow.medium:SPILL}")
+    private OverflowPolicy mediumRiskPolicy;
+
+    @Value("${audit.writer.overflow.high:SPILL}")
+    private OverflowPolicy highRiskPolicy;
+
+    @Value("${audit.writer.overflow.critical:BLOCK}")
+    private OverflowPolicy criticalRiskPolicy;
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    private MpscRingBuffer<AuditLog> buffer;
+    private Thread writerThread;
+    private Timer flushTimer;
+    private volatile boolean running;
+
+    /**
+     * 数据库写入失败后，在该时间点之前直接转存，避免每批都等待连接超时
+     */
+    private volatile long databaseRetryAt;
+    private volatile boolean databaseUnavailable;
+
+    @PostConstruct
+    public void init() {
+        batchSize = Math.max(1, Math.min(batchSize, MAX_BATCH_SIZE));
+        buffer = new MpscRingBuffer<>(bufferSize);
+
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (meterRegistry != null) {
+            Gauge.builder("audit.buffer.size", buffer, MpscRingBuffer::size)
+                    .description("审计日志缓冲区中待写入的事件数")
+                    .register(meterRegistry);
+            flushTimer = Timer.builder("audit.flush")
+                    .description("审计日志批量写入耗时")
+                    .register(meterRegistry);
+        }
+
+        running = true;
+        writerThread = new Thread(this::runWriter, "audit-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("Audit log writer started, buffer size: {}, batch size: {}, flush interval: {}",
+                buffer.capacity(), batchSize, flushInterval);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writerThread);
+        writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        if (!buffer.isEmpty()) {
+            log.warn("Audit log writer stopped with {} events still buffered", buffer.size());
+        }
+    }
+
+    @Override
+    public void record(AuditLog auditLog, boolean async) {
+        // 要求同步写入的事件必须逐条持久化，不参与只在内存中累积的汇总
+        if (async && auditRollupAggregator.absorb(auditLog)) {
+            return;
+        }
+        if (!async) {
+            // 关键操作：在调用线程同步写入，写入失败时转存
+            count("sync");
+            writeSync(auditLog);
+            return;
+        }
+        if (buffer.offer(auditLog)) {
+            if (buffer.size() >= batchSize) {
+                LockSupport.unpark(writerThread);
+            }
+            return;
+        }
+        handleOverflow(auditLog);
+    }
+
+    private void handleOverflow(AuditLog auditLog) {
+        OverflowPolicy policy = policyFor(auditLog.getRiskLevel());
+        if (policy == OverflowPolicy.DROP) {
+            count("dropped");
+            log.debug("Audit buffer full, dropping {} event: {}", auditLog.getRiskLevel(), auditLog.getOperationName());
+            return;
+        }
+        if (policy == OverflowPolicy.SPILL && spill(auditLog)) {
+            count("spilled");
+            return;
+        }
+        // BLOCK，或未配置转存时退化为等待
+        count("blocked");
+        long deadline = System.nanoTime() + blockTimeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            LockSupport.unpark(writerThread);
+            LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+            if (buffer.offer(auditLog)) {
+                return;
+            }
+        }
+        if (spill(auditLog)) {
+            count("spilled");
+            return;
+        }
+        log.warn("Audit buffer still full after {}, writing {} event synchronously", blockTimeout, auditLog.getRiskLevel());
+        writeSync(auditLog);
+    }
+
+    private OverflowPolicy policyFor(String riskLevel) {
+        if (riskLevel == null) {
+            return lowRiskPolicy;
+        }
+        return switch (riskLevel) {
+            case "CRITICAL" -> criticalRiskPolicy;
+            case "HIGH" -> highRiskPolicy;
+            case "MEDIUM" -> mediumRiskPolicy;
+            default -> lowRiskPolicy;
+        };
+    }
+
+    private void writeSync(AuditLog auditLog) {
+        try {
+            auditLogRepository.insertBatch(List.of(auditLog));
+        } catch (Exception e) {
+            count("failed");
+            if (!spill(auditLog)) {
+                log.error("Failed to write audit log: {} {}", auditLog.getOperationType(), auditLog.getOperationName(), e);
+            }
+        }
+    }
+
+    private boolean spill(AuditLog auditLog) {
+        AuditJournal journal = auditJournalProvider.getIfAvailable();
+        return journal != null && journal.append(auditLog);
+    }
+
+    /**
+     * 写入线程主循环：攒够一批或距首个事件超过刷新间隔时写入
+     */
+    private void runWriter() {
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        long flushIntervalNanos = flushInterval.toNanos();
+        long firstEventAt = 0;
+        while (running || !buffer.isEmpty()) {
+            buffer.drain(batch::add, batchSize - batch.size());
+            if (batch.isEmpty()) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+                continue;
+            }
+            long now = System.nanoTime();
+            if (firstEventAt == 0) {
+                firstEventAt = now;
+            }
+            long waited = now - firstEventAt;
+            if (batch.size() >= batchSize || waited >= flushIntervalNanos || !running) {
+                flush(batch);
+                batch.clear();
+                firstEventAt = 0;
+            } else {
+                LockSupport.parkNanos(this, flushIntervalNanos - waited);
+            }
+        }
+        if (!batch.isEmpty()) {
+            flush(batch);
+        }
+    }
+
+    private void flush(List<AuditLog> batch) {
+        long start = System.nanoTime();
+        if (databaseUnavailable && start - databaseRetryAt < 0 && auditJournalProvider.getIfAvailable() != null) {
+            int lost = spillAll(batch);
+            count("spilled", batch.size() - lost);
+            if (lost > 0) {
+                log.error("Database unavailable, {} audit logs could not be spilled", lost);
+            }
+            return;
+        }
+        try {
+            auditLogRepository.insertBatch(batch);
+            databaseUnavailable = false;
+            count("written", batch.size());
+        } catch (Exception e) {
+            if (DataAccessErrors.isDataError(e)) {
+                // 个别行的数据错误不代表数据库不可用，逐条写入以剔除问题行
+                writeRowByRow(batch);
+            } else {
+                markDatabaseUnavailable();
+                count("failed", batch.size());
+                int lost = spillAll(batch);
+                log.error("Failed to write {} audit logs, {} could not be spilled", batch.size(), lost, e);
+            }
+        } finally {
+            if (flushTimer != null) {
+                flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * 逐条写入一批事件：数据错误的行转存（回放时归入拒收文件保留），其余行照常写入；
+     * 遇到连接等错误时标记数据库不可用，剩余的行全部转存
+     */
+    private void writeRowByRow(List<AuditLog> batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            AuditLog auditLog = batch.get(i);
+            try {
+                auditLogRepository.insertBatch(List.of(auditLog));
+                count("written");
+            } catch (Exception e) {
+                if (DataAccessErrors.isDataError(e)) {
+                    count("rejected");
+                    if (!spill(auditLog)) {
+                        log.error("Audit log rejected by database: {} {} trace {}: {}", auditLog.getOperationType(),
+                                auditLog.getOperationName(), auditLog.getTraceId(), e.getMessage());
+                    }
+                    continue;
+                }
+                markDatabaseUnavailable();
+                List<AuditLog> remaining = batch.subList(i, batch.size());
+                count("failed", remaining.size());
+                int lost = spillAll(remaining);
+                log.error("Failed to write {} audit logs, {} could not be spilled", remaining.size(), lost, e);
+                return;
+            }
+        }
+        databaseUnavailable = false;
+    }
+
+    private void markDatabaseUnavailable() {
+        databaseRetryAt = System.nanoTime() + databaseRetryInterval.toNanos();
+        databaseUnavailable = true;
+    }
+
+    /**
+     * @return 未能转存的事件数
+     */
+    private int spillAll(List<AuditLog> batch) {
+        int lost = 0;
+        for (AuditLog auditLog : batch) {
+            if (!spill(auditLog)) {
+                lost++;
+            }
+        }
+        return lost;
+    }
+
+    private void count(String outcome) {
+        count(outcome, 1);
+    }
+
+    private void count(String outcome, int amount) {
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (meterRegistry == null) {
+            return;
+        }
+        counters.computeIfAbsent(outcome, o -> Counter.builder("audit.events")
+                        .description("审计事件处理结果")
+                        .tag("outcome", o)
+                        .register(meterRegistry))
+                .increment(amount);
+    }
+
+    /**
+     * 缓冲区已满时的背压策略
+     */
+    public enum OverflowPolicy {
+        /**
+         * 丢弃事件
+         */
+        DROP,
+        /**
+         * 等待缓冲区空位，超时后同步写入
+         */
+        BLOCK,
+        /**
+         * 转存到本地日志，未配置转存时按BLOCK处理
+         */
+        SPILL
+    }
+}
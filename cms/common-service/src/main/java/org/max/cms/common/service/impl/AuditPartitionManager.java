@@ -0,0 +1,128 @@
+package org.max.cms.common.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.max.cms.common.repository.AuditPartitionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * 审计日志分区管理器
+ * 按月提前创建audit_logs分区，并按保留策略卸载（可选删除）过期分区。
+ * 多节点同时执行时，创建使用IF NOT EXISTS，卸载失败仅记录日志。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AuditPartitionManager {
+
+    private static final String PARTITION_PREFIX = "audit_logs_p";
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final AuditPartitionRepository auditPartitionRepository;
+
+    @Value("${audit.partition.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 提前创建的月份数（不含当前月）
+     */
+    @Value("${audit.partition.premake-months:3}")
+    private int premakeMonths;
+
+    /**
+     * 保留的月份数（不含当前月），小于等于0表示不清理
+     */
+    @Value("${audit.partition.retention-months:12}")
+    private int retentionMonths;
+
+    /**
+     * 过期分区卸载后是否直接删除；为false时保留为普通表供归档
+     */
+    @Value("${audit.partition.drop-expired:false}")
+    private boolean dropExpired;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        maintain();
+    }
+
+    /**
+     * 执行分区维护
+     */
+    @Scheduled(cron = "${audit.partition.cron:0 30 2 * * *}")
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+        YearMonth currentMonth = YearMonth.now();
+        try {
+            createPartitions(currentMonth);
+            expirePartitions(currentMonth);
+        } catch (Exception e) {
+            log.error("Audit partition maintenance failed", e);
+        }
+    }
+
+    private void createPartitions(YearMonth currentMonth) {
+        for (int i = 0; i <= premakeMonths; i++) {
+            YearMonth month = currentMonth.plusMonths(i);
+            String name = partitionName(month);
+            try {
+                auditPartitionRepository.createPartition(name, month.atDay(1), month.plusMonths(1).atDay(1));
+            } catch (Exception e) {
+                // 兜底分区中已有该月数据时无法创建，需要人工迁移
+                log.error("Failed to create audit partition {}", name, e);
+            }
+        }
+    }
+
+    private void expirePartitions(YearMonth currentMonth) {
+        if (retentionMonths <= 0) {
+            return;
+        }
+        YearMonth oldestRetained = currentMonth.minusMonths(retentionMonths);
+        List<String> partitions = auditPartitionRepository.selectPartitionNames();
+        for (String name : partitions) {
+            YearMonth month = parseMonth(name);
+            if (month == null || !month.isBefore(oldestRetained)) {
+                continue;
+            }
+            try {
+                auditPartitionRepository.detachPartition(name);
+                if (dropExpired) {
+                    auditPartitionRepository.dropTable(name);
+                    log.info("Dropped expired audit partition {}", name);
+                } else {
+                    log.info("Detached expired audit partition {}", name);
+                }
+            } catch (Exception e) {
+                log.warn("Failed to expire audit partition {}: {}", name, e.getMessage());
+            }
+        }
+    }
+
+    private static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+    }
+
+    private static YearMonth parseMonth(String partitionName) {
+        if (!partitionName.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partitionName.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package org.max.cms.common.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.max.cms.common.entity.AuditLog;
+import org.max.cms.common.entity.AuditLogRollup;
+import org.max.cms.common.repository.AuditLogRollupRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 低风险审计事件汇总器
+ * 命中汇总规则（操作类型、业务模块）的LOW级别成功事件在内存中按分钟聚合为
+ * 次数、响应时间P50/P99/最大值和去重用户数，分钟结束后批量写入audit_log_rollups。
+ * 可按抽样率保留部分事件逐条写入audit_logs。失败事件和其他风险级别的事件始终逐条记录。
+ * 写入失败的汇总保留在内存中，下次写入时重试，积压超过上限时丢弃最早的记录。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AuditRollupAggregator {
+
+    /**
+     * 单个分钟桶内精确去重的用户数上限，超出后只计下限
+     */
+    private static final int MAX_DISTINCT_USERS = 10_000;
+
+    /**
+     * 单条INSERT的最大行数，避免超出PostgreSQL的参数个数上限
+     */
+    private static final int INSERT_BATCH_SIZE = 1000;
+
+    private final AuditLogRollupRepository auditLogRollupRepository;
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    @Value("${audit.rollup.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * 参与汇总的操作类型
+     */
+    @Value("${audit.rollup.operation-types:QUERY}")
+    private Set<String> operationTypes;
+
+    /**
+     * 参与汇总的业务模块，为空表示不限
+     */
+    @Value("${audit.rollup.modules:}")
+    private Set<String> modules;
+
+    /**
+     * 汇总之外逐条写入audit_logs的抽样率，0表示只写汇总
+     */
+    @Value("${audit.rollup.sample-rate:0}")
+    private double sampleRate;
+
+    /**
+     * 写入失败后等待重试的汇总条数上限
+     */
+    @Value("${audit.rollup.max-pending:10000}")
+    private int maxPending;
+
+    private final Map<RollupKey, Rollup> rollups = new ConcurrentHashMap<>();
+
+    /**
+     * 写入失败待重试的汇总，只在flush中访问
+     */
+    private final Deque<AuditLogRollup> pending = new ArrayDeque<>();
+
+    private Counter rolledUpCounter;
+
+    @PostConstruct
+    public void init() {
+        operationTypes = withoutBlanks(operationTypes);
+        modules = withoutBlanks(modules);
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (meterRegistry != null) {
+            rolledUpCounter = Counter.builder("audit.rollup.events")
+                    .description("并入分钟汇总的审计事件数")
+                    .register(meterRegistry);
+        }
+        if (enabled) {
+            log.info("Audit rollup enabled, operation types: {}, modules: {}, sample rate: {}",
+                    operationTypes, modules.isEmpty() ? "all" : modules, sampleRate);
+        }
+    }
+
+    private static Set<String> withoutBlanks(Set<String> values) {
+        Set<String> result = new HashSet<>(values);
+        result.remove("");
+        return result;
+    }
+
+    /**
+     * 尝试将事件并入汇总
+     *
+     * @return true表示事件已被汇总吸收，无需逐条写入；false表示仍需逐条写入（未命中规则或被抽中）
+     */
+    public boolean absorb(AuditLog auditLog) {
+        if (!enabled || !matches(auditLog)) {
+            return false;
+        }
+        boolean sampled = sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+        LocalDateTime bucketStart = auditLog.getStartTime().truncatedTo(ChronoUnit.MINUTES);
+        RollupKey key = new RollupKey(bucketStart, auditLog.getOperationType(), auditLog.getBusinessModule(),
+                auditLog.getOperationName());
+        Rollup rollup = rollups.computeIfAbsent(key, k -> new Rollup());
+        while (!rollup.add(auditLog, sampled)) {
+            // 桶已被写入线程关闭，移除后并入新桶
+            rollups.remove(key, rollup);
+            rollup = rollups.computeIfAbsent(key, k -> new Rollup());
+        }
+        if (rolledUpCounter != null) {
+            rolledUpCounter.increment();
+        }
+        return !sampled;
+    }
+
+    private boolean matches(AuditLog auditLog) {
+        String riskLevel = auditLog.getRiskLevel();
+        return (riskLevel == null || "LOW".equals(riskLevel))
+                && "SUCCESS".equals(auditLog.getStatus())
+                && auditLog.getStartTime() != null
+                && operationTypes.contains(auditLog.getOperationType())
+                && (modules.isEmpty() || modules.contains(auditLog.getBusinessModule()));
+    }
+
+    /**
+     * 写入已结束分钟的汇总；为容纳跨分钟的慢请求，当前分钟和上一分钟暂不写入
+     */
+    @Scheduled(fixedDelayString = "${audit.rollup.flush-interval:15000}")
+    public void flush() {
+        flush(LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES).minusMinutes(1));
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        flush(LocalDateTime.MAX);
+        if (!pending.isEmpty()) {
+            log.error("Discarding {} unwritten audit rollups on shutdown", pending.size());
+        }
+    }
+
+    private synchronized void flush(LocalDateTime before) {
+        if (rollups.isEmpty() && pending.isEmpty()) {
+            return;
+        }
+        List<AuditLogRollup> closed = new ArrayList<>(pending);
+        pending.clear();
+        for (Map.Entry<RollupKey, Rollup> entry : rollups.entrySet()) {
+            if (entry.getKey().bucketStart().isBefore(before)) {
+                // 先在桶锁内关闭再移除，之后到达的事件进入新桶，不会丢失
+                closed.add(entry.getValue().close(entry.getKey()));
+                rollups.remove(entry.getKey(), entry.getValue());
+            }
+        }
+        for (int from = 0; from < closed.size(); from += INSERT_BATCH_SIZE) {
+            List<AuditLogRollup> batch = closed.subList(from, Math.min(from + INSERT_BATCH_SIZE, closed.size()));
+            try {
+                auditLogRollupRepository.insertBatch(batch);
+                log.debug("Flushed {} audit rollups", batch.size());
+            } catch (Exception e) {
+                List<AuditLogRollup> unwritten = closed.subList(from, closed.size());
+                log.warn("Failed to write {} audit rollups, will retry: {}", unwritten.size(), e.getMessage());
+                requeue(unwritten);
+                return;
+            }
+        }
+    }
+
+    private void requeue(List<AuditLogRollup> unwritten) {
+        pending.addAll(unwritten);
+        int dropped = 0;
+        while (pending.size() > maxPending) {
+            pending.pollFirst();
+            dropped++;
+        }
+        if (dropped > 0) {
+            log.error("Dropped {} oldest audit rollups, pending retry limit {} reached", dropped, maxPending);
+        }
+    }
+
+    private record RollupKey(LocalDateTime bucketStart, String operationType, String businessModule,
+                             String operationName) {
+    }
+
+    /**
+     * 单个分钟桶的累加器
+     * 事件从记录线程并发写入，同一桶内的竞争很小，直接同步
+     */
+    private static final class Rollup {
+
+        private final LatencyHistogram responseTimes = new LatencyHistogram();
+        private final Set<Object> users = new HashSet<>();
+        private long eventCount;
+        private long sampledCount;
+        private int distinctUsers;
+        private boolean closed;
+
+        /**
+         * @return 桶已关闭时返回false，调用方需要并入新桶
+         */
+        synchronized boolean add(AuditLog auditLog, boolean sampled) {
+            if (closed) {
+                return false;
+            }
+            eventCount++;
+            if (sampled) {
+                sampledCount++;
+            }
+            if (auditLog.getResponseTime() != null) {
+                responseTimes.record(auditLog.getResponseTime());
+            }
+            Object user = auditLog.getUserId() != null ? auditLog.getUserId() : auditLog.getUsername();
+            if (user != null && users.size() < MAX_DISTINCT_USERS && users.add(user)) {
+                distinctUsers++;
+            }
+            return true;
+        }
+
+        /**
+         * 关闭桶并生成汇总记录，之后的add均返回false
+         */
+        synchronized AuditLogRollup close(RollupKey key) {
+            closed = true;
+            AuditLogRollup rollup = new AuditLogRollup();
+            rollup.setBucketStart(key.bucketStart());
+            rollup.setOperationType(key.operationType());
+            rollup.setBusinessModule(key.businessModule());
+            rollup.setOperationName(key.operationName());
+            rollup.setEventCount(eventCount);
+            rollup.setSampledCount(sampledCount);
+            rollup.setDistinctUsers(distinctUsers);
+            if (responseTimes.count() > 0) {
+                rollup.setResponseTimeP50(responseTimes.percentile(0.5));
+                rollup.setResponseTimeP99(responseTimes.percentile(0.99));
+                rollup.setResponseTimeMax(responseTimes.max());
+            }
+            return rollup;
+        }
+    }
+
+    /**
+     * 对数线性直方图
+     * 小于16的值精确计数，之后每个2的幂区间再均分为16个子桶，相对误差约6%，内存固定
+     */
+    private static final class LatencyHistogram {
+
+        private static final int SUB_BUCKET_BITS = 4;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int BUCKETS = SUB_BUCKETS + (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+        private int[] counts;
+        private long count;
+        private long max;
+
+        void record(long value) {
+            if (value < 0) {
+                return;
+            }
+            if (counts == null) {
+                counts = new int[BUCKETS];
+            }
+            counts[index(value)]++;
+            count++;
+            max = Math.max(max, value);
+        }
+
+        long count() {
+            return count;
+        }
+
+        long max() {
+            return max;
+        }
+
+        long percentile(double quantile) {
+            long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(valueOf(i), max);
+                }
+            }
+            return max;
+        }
+
+        private static int index(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+            int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+            return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+        }
+
+        /**
+         * 桶的代表值：桶区间的中点
+         */
+        private static long valueOf(int index) {
+            if (index < SUB_BUCKETS) {
+                return index;
+            }
+            int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+            int subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+            long lower = (long) (SUB_BUCKETS + subBucket) << shift;
+            return lower + ((1L << shift) >>> 1);
+        }
+    }
+}
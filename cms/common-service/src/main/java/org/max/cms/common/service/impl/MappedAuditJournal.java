@@ -0,0 +1,432 @@
+package org.max.cms.common.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.max.cms.common.entity.AuditLog;
+import org.max.cms.common.repository.AuditLogRepository;
+import org.max.cms.common.service.AuditJournal;
+import org.max.cms.common.util.DataAccessErrors;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * 基于内存映射文件的审计日志转存
+ * 缓冲区已满或数据库不可用时，审计事件以追加方式写入本地分段文件，
+ * 后台回放任务在数据库恢复后按检查点顺序写回audit_logs，检查点在每批写入成功后原子更新。
+ *
+ * 记录格式：[长度 4字节][CRC32C 4字节][JSON]，长度最后写入，长度为0表示段内数据结束。
+ * 回放语义为至少一次：写入成功但检查点尚未落盘时进程崩溃，重启后该批会重复写入。
+ * 因数据错误（超长、约束冲突）永远无法写入的记录逐条剔除到拒收文件，只有连接类错误才暂停回放。
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "audit.journal.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class MappedAuditJournal implements AuditJournal {
+
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String CHECKPOINT_TEMP_FILE = "checkpoint.tmp";
+    private static final String REJECTED_FILE = "rejected.ndjson";
+
+    /**
+     * 记录头：长度 + CRC
+     */
+    private static final int HEADER_BYTES = 8;
+
+    private final ObjectMapper objectMapper;
+    private final AuditLogRepository auditLogRepository;
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    @Value("${audit.journal.directory:audit-journal}")
+    private String directory;
+
+    @Value("${audit.journal.segment-size:64MB}")
+    private DataSize segmentSize;
+
+    @Value("${audit.journal.replay-batch-size:200}")
+    private int replayBatchSize;
+
+    @Value("${audit.journal.replay-max-batches:50}")
+    private int replayMaxBatches;
+
+    @Value("${audit.journal.force-on-append:false}")
+    private boolean forceOnAppend;
+
+    private Path journalDirectory;
+    private int segmentBytes;
+
+    /**
+     * 当前写入段，由this保护
+     */
+    private FileChannel activeChannel;
+    private MappedByteBuffer activeBuffer;
+
+    /**
+     * 当前写入段序号及已发布的写入位置，供回放线程读取
+     */
+    private volatile long activeSequence;
+    private volatile int activePosition;
+
+    /**
+     * 回放检查点，仅由回放线程更新
+     */
+    private volatile Checkpoint checkpoint;
+
+    private Counter appendedCounter;
+    private Counter replayedCounter;
+    private Counter rejectedCounter;
+
+    @PostConstruct
+    public void init() throws IOException {
+        journalDirectory = Paths.get(directory).toAbsolutePath();
+        Files.createDirectories(journalDirectory);
+        segmentBytes = (int) Math.min(segmentSize.toBytes(), Integer.MAX_VALUE);
+
+        List<Long> sequences = listSegments();
+        checkpoint = readCheckpoint(sequences);
+        for (Long sequence : sequences) {
+            if (sequence < checkpoint.sequence()) {
+                // 已完整回放但未及删除的段
+                Files.deleteIfExists(segmentPath(sequence));
+            }
+        }
+        long lastSequence = sequences.isEmpty() ? checkpoint.sequence() : sequences.get(sequences.size() - 1);
+        openSegment(Math.max(lastSequence, checkpoint.sequence()));
+
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (meterRegistry != null) {
+            appendedCounter = Counter.builder("audit.journal.appended")
+                    .description("转存到本地日志的审计事件数")
+                    .register(meterRegistry);
+            replayedCounter = Counter.builder("audit.journal.replayed")
+                    .description("从本地日志回放到数据库的审计事件数")
+                    .register(meterRegistry);
+            rejectedCounter = Counter.builder("audit.journal.rejected")
+                    .description("因数据错误无法回放、转入拒收文件的审计事件数")
+                    .register(meterRegistry);
+            Gauge.builder("audit.journal.backlog", this, MappedAuditJournal::backlogBytes)
+                    .description("尚未回放的本地日志字节数")
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+        }
+        log.info("Audit journal opened at {}, segment {} position {}, checkpoint {}",
+                journalDirectory, activeSequence, activePosition, checkpoint);
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (activeChannel != null) {
+            activeBuffer.force();
+            activeChannel.close();
+        }
+    }
+
+    @Override
+    public boolean append(AuditLog auditLog) {
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(auditLog);
+        } catch (IOException e) {
+            log.error("Failed to serialize audit log for journal", e);
+            return false;
+        }
+        int recordBytes = HEADER_BYTES + payload.length;
+        // 段尾至少保留一个长度字段作为结束标记
+        if (recordBytes + Integer.BYTES > segmentBytes) {
+            log.error("Audit log of {} bytes exceeds journal segment size {}", payload.length, segmentSize);
+            return false;
+        }
+
+        synchronized (this) {
+            try {
+                if (activePosition + recordBytes + Integer.BYTES > segmentBytes) {
+                    roll();
+                }
+                int position = activePosition;
+                activeBuffer.putInt(position + Integer.BYTES, checksum(payload));
+                activeBuffer.put(position + HEADER_BYTES, payload);
+                activeBuffer.putInt(position, payload.length);
+                if (forceOnAppend) {
+                    activeBuffer.force(position, recordBytes);
+                }
+                activePosition = position + recordBytes;
+            } catch (IOException e) {
+                log.error("Failed to append audit log to journal", e);
+                return false;
+            }
+        }
+        if (appendedCounter != null) {
+            appendedCounter.increment();
+        }
+        return true;
+    }
+
+    /**
+     * 将本地日志回放到数据库
+     * 每次最多写入replay-max-batches批，剩余积压由后续调度继续；数据库仍不可用时保留检查点，等待下次调度
+     */
+    @Scheduled(fixedDelayString = "${audit.journal.replay-interval:5000}")
+    public void replay() {
+        int batches = 0;
+        while (batches < replayMaxBatches) {
+            Checkpoint current = checkpoint;
+            long sequence = current.sequence();
+            boolean active = sequence == activeSequence;
+            if (active && current.offset() >= activePosition) {
+                return;
+            }
+
+            List<AuditLog> batch = new ArrayList<>(replayBatchSize);
+            long next;
+            try {
+                next = readBatch(sequence, current.offset(), active ? activePosition : segmentBytes, batch);
+            } catch (IOException e) {
+                log.error("Failed to read audit journal segment {}", sequence, e);
+                return;
+            }
+
+            if (batch.isEmpty()) {
+                if (active) {
+                    return;
+                }
+                batches++;
+                // 段已回放完毕，推进到下一段后删除
+                if (!advance(new Checkpoint(sequence + 1, 0))) {
+                    return;
+                }
+                try {
+                    Files.deleteIfExists(segmentPath(sequence));
+                } catch (IOException e) {
+                    log.warn("Failed to delete replayed audit journal segment {}", sequence, e);
+                }
+                continue;
+            }
+
+            try {
+                auditLogRepository.insertBatch(batch);
+            } catch (Exception e) {
+                if (!DataAccessErrors.isDataError(e) || !replayRowByRow(batch)) {
+                    log.warn("Audit journal replay paused, {} bytes pending: {}", backlogBytes(), e.getMessage());
+                    return;
+                }
+            }
+            batches++;
+            if (replayedCounter != null) {
+                replayedCounter.increment(batch.size());
+            }
+            if (!advance(new Checkpoint(sequence, next))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 批量写入因数据错误失败时逐条写入，无法写入的记录转入拒收文件，不再阻塞回放
+     * 至少一次语义下，中途暂停后本批已写入的记录会在下次回放时重复写入
+     *
+     * @return 整批已处理完毕；遇到连接等非数据错误时返回false，回放暂停
+     */
+    private boolean replayRowByRow(List<AuditLog> batch) {
+        for (AuditLog auditLog : batch) {
+            try {
+                auditLogRepository.insertBatch(List.of(auditLog));
+            } catch (Exception e) {
+                if (!DataAccessErrors.isDataError(e)) {
+                    return false;
+                }
+                reject(auditLog, e);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 将无法写入数据库的记录追加到拒收文件（每行一条JSON），供人工处理
+     */
+    private void reject(AuditLog auditLog, Exception error) {
+        log.error("Audit log rejected by database and moved to {}: {} {} trace {}: {}", REJECTED_FILE,
+                auditLog.getOperationType(), auditLog.getOperationName(), auditLog.getTraceId(), error.getMessage());
+        try {
+            byte[] line = (objectMapper.writeValueAsString(auditLog) + "\n").getBytes(StandardCharsets.UTF_8);
+            Files.write(journalDirectory.resolve(REJECTED_FILE), line,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.error("Failed to write rejected audit log", e);
+        }
+        if (rejectedCounter != null) {
+            rejectedCounter.increment();
+        }
+    }
+
+    /**
+     * 从指定位置读取至多一批记录
+     *
+     * @return 下一条记录的位置
+     */
+    private long readBatch(long sequence, long offset, long limit, List<AuditLog> batch) throws IOException {
+        Path path = segmentPath(sequence);
+        if (!Files.exists(path)) {
+            return offset;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        long position = offset;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            limit = Math.min(limit, channel.size());
+            while (batch.size() < replayBatchSize && position + HEADER_BYTES <= limit) {
+                header.clear();
+                channel.read(header, position);
+                int length = header.getInt(0);
+                if (length <= 0 || position + HEADER_BYTES + length > limit) {
+                    break;
+                }
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                channel.read(payload, position + HEADER_BYTES);
+                if (checksum(payload.array()) != header.getInt(Integer.BYTES)) {
+                    // 崩溃时未写完的记录，视为段尾
+                    log.warn("Corrupt audit journal record in segment {} at {}, skipping rest of segment", sequence, position);
+                    break;
+                }
+                batch.add(objectMapper.readValue(payload.array(), AuditLog.class));
+                position += HEADER_BYTES + length;
+            }
+        }
+        return position;
+    }
+
+    private void roll() throws IOException {
+        activeBuffer.force();
+        activeChannel.close();
+        openSegment(activeSequence + 1);
+        log.info("Audit journal rolled to segment {}", activeSequence);
+    }
+
+    /**
+     * 打开并映射分段文件，扫描已有记录确定写入位置
+     */
+    private void openSegment(long sequence) throws IOException {
+        FileChannel channel = FileChannel.open(segmentPath(sequence),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+
+        int position = 0;
+        while (position + HEADER_BYTES <= segmentBytes) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + HEADER_BYTES + length > segmentBytes) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(position + HEADER_BYTES, payload);
+            if (checksum(payload) != buffer.getInt(position + Integer.BYTES)) {
+                break;
+            }
+            position += HEADER_BYTES + length;
+        }
+        if (position + Integer.BYTES <= segmentBytes) {
+            // 清除可能残留的半条记录，保证结束标记有效
+            buffer.putInt(position, 0);
+        }
+
+        activeChannel = channel;
+        activeBuffer = buffer;
+        activeSequence = sequence;
+        activePosition = position;
+    }
+
+    private boolean advance(Checkpoint next) {
+        try {
+            writeCheckpoint(next);
+            checkpoint = next;
+            return true;
+        } catch (IOException e) {
+            log.error("Failed to write audit journal checkpoint {}", next, e);
+            return false;
+        }
+    }
+
+    /**
+     * 先写临时文件再原子替换，保证检查点不会处于半写状态
+     */
+    private void writeCheckpoint(Checkpoint value) throws IOException {
+        Path temp = journalDirectory.resolve(CHECKPOINT_TEMP_FILE);
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES * 2);
+        buffer.putLong(value.sequence()).putLong(value.offset()).flip();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, journalDirectory.resolve(CHECKPOINT_FILE),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Checkpoint readCheckpoint(List<Long> sequences) throws IOException {
+        Path path = journalDirectory.resolve(CHECKPOINT_FILE);
+        if (Files.exists(path)) {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+            if (buffer.remaining() == Long.BYTES * 2) {
+                return new Checkpoint(buffer.getLong(), buffer.getLong());
+            }
+            log.warn("Ignoring malformed audit journal checkpoint {}", path);
+        }
+        return new Checkpoint(sequences.isEmpty() ? 1 : sequences.get(0), 0);
+    }
+
+    private List<Long> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(journalDirectory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long sequence) {
+        return journalDirectory.resolve(String.format("%020d%s", sequence, SEGMENT_SUFFIX));
+    }
+
+    private double backlogBytes() {
+        Checkpoint current = checkpoint;
+        return (double) (activeSequence - current.sequence()) * segmentBytes + activePosition - current.offset();
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * 回放检查点：下一条待回放记录所在的段序号和偏移
+     */
+    private record Checkpoint(long sequence, long offset) {
+    }
+}
@@ -0,0 +1,64 @@
+package org.max.cms.common.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 审计变更捕获范围
+ * UPDATE类审计方法执行期间开启，SQL拦截器把被更新行的修改前后镜像记录到当前范围，
+ * 方法结束后由审计切面取出计算字段级差异。嵌套开启时由最外层负责结束。
+ */
+public final class AuditChangeCapture {
+
+    /**
+     * 单个范围最多记录的行数，批量更新时只保留前面的行
+     */
+    private static final int MAX_ROWS = 100;
+
+    private static final ThreadLocal<List<RowChange>> CURRENT = new ThreadLocal<>();
+
+    private AuditChangeCapture() {
+    }
+
+    /**
+     * 开启捕获范围
+     *
+     * @return 是否由本次调用开启，为true时需调用end结束
+     */
+    public static boolean begin() {
+        if (CURRENT.get() != null) {
+            return false;
+        }
+        CURRENT.set(new ArrayList<>());
+        return true;
+    }
+
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * 记录一行的修改前后镜像（JSON）
+     */
+    public static void record(String table, String oldRow, String newRow) {
+        List<RowChange> changes = CURRENT.get();
+        if (changes != null && changes.size() < MAX_ROWS) {
+            changes.add(new RowChange(table, oldRow, newRow));
+        }
+    }
+
+    /**
+     * 结束捕获范围并返回记录的变更
+     */
+    public static List<RowChange> end() {
+        List<RowChange> changes = CURRENT.get();
+        CURRENT.remove();
+        return changes != null ? changes : List.of();
+    }
+
+    /**
+     * 单行变更
+     */
+    public record RowChange(String table, String oldRow, String newRow) {
+    }
+}
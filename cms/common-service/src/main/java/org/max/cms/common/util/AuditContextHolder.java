@@ -3,15 +3,24 @@ package org.max.cms.common.util;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
-import jakarta.servlet.http.HttpServletRequest;
-import java.util.UUID;
-
 /**
  * 审计上下文持有者
- * 用于在整个请求过程中维护当前用户信息和链路追踪信息
+ * 用于在整个请求过程中维护当前用户信息和链路追踪信息。
+ * 上下文只在请求或任务的执行范围内绑定：请求由AuditContextFilter绑定并在结束时清除，
+ * 提交到线程池的任务由AuditContextTaskDecorator携带调用方上下文的副本并在执行后恢复。
  */
 public class AuditContextHolder {
-    
+
+    /**
+     * 链路追踪ID请求头
+     */
+    public static final String TRACE_ID_HEADER = "X-Trace-Id";
+
+    /**
+     * 外部传入的链路追踪ID最大长度，与audit_logs.trace_id列一致
+     */
+    private static final int MAX_TRACE_ID_LENGTH = 100;
+
     private static final ThreadLocal<AuditContext> CONTEXT_HOLDER = new ThreadLocal<>();
     
     /**
@@ -22,15 +31,12 @@ public class AuditContextHolder {
     }
     
     /**
-     * 获取当前审计上下文
+     * 获取当前审计上下文，未绑定时返回临时的默认上下文且不绑定到当前线程，
+     * 避免定时任务和线程池线程残留链路追踪ID
      */
     public static AuditContext getContext() {
         AuditContext context = CONTEXT_HOLDER.get();
-        if (context == null) {
-            context = createDefaultContext();
-            CONTEXT_HOLDER.set(context);
-        }
-        return context;
+        return context != null ? context : createDefaultContext();
     }
     
     /**
@@ -39,6 +45,40 @@ public class AuditContextHolder {
     public static void clearContext() {
         CONTEXT_HOLDER.remove();
     }
+
+    /**
+     * 复制当前已绑定的审计上下文，未绑定时返回null
+     */
+    public static AuditContext capture() {
+        AuditContext context = CONTEXT_HOLDER.get();
+        return context != null ? context.copy() : null;
+    }
+
+    /**
+     * 在指定上下文范围内执行任务，结束后恢复原有上下文
+     */
+    public static void runWith(AuditContext context, Runnable task) {
+        AuditContext previous = CONTEXT_HOLDER.get();
+        CONTEXT_HOLDER.set(context);
+        try {
+            task.run();
+        } finally {
+            if (previous != null) {
+                CONTEXT_HOLDER.set(previous);
+            } else {
+                CONTEXT_HOLDER.remove();
+            }
+        }
+    }
+
+    /**
+     * 按传入的链路追踪ID创建上下文，ID缺失或格式不合法时生成新ID
+     */
+    public static AuditContext newContext(String traceId) {
+        AuditContext context = new AuditContext();
+        context.setTraceId(isValidTraceId(traceId) ? traceId : TraceIdGenerator.next());
+        return context;
+    }
     
     /**
      * 获取当前用户ID
@@ -72,7 +112,7 @@ public class AuditContextHolder {
      * 设置当前用户信息
      */
     public static void setCurrentUser(Long userId, String username, String userRealName) {
-        AuditContext context = getContext();
+        AuditContext context = bindContext();
         context.setUserId(userId);
         context.setUsername(username);
         context.setUserRealName(userRealName);
@@ -82,32 +122,46 @@ public class AuditContextHolder {
      * 设置链路追踪ID
      */
     public static void setTraceId(String traceId) {
-        getContext().setTraceId(traceId);
+        bindContext().setTraceId(traceId);
+    }
+
+    /**
+     * 获取当前已绑定的上下文，未绑定时创建并绑定，仅用于写入
+     */
+    private static AuditContext bindContext() {
+        AuditContext context = CONTEXT_HOLDER.get();
+        if (context == null) {
+            context = createDefaultContext();
+            CONTEXT_HOLDER.set(context);
+        }
+        return context;
     }
     
     /**
-     * 创建默认上下文
+     * 创建默认上下文，请求中优先使用请求头的链路追踪ID
      */
     private static AuditContext createDefaultContext() {
-        AuditContext context = new AuditContext();
-        
-        // 尝试从请求头获取链路追踪ID
-        try {
-            ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-            if (attributes != null) {
-                HttpServletRequest request = attributes.getRequest();
-                String traceId = request.getHeader("X-Trace-Id");
-                if (traceId == null) {
-                    traceId = UUID.randomUUID().toString().replace("-", "");
-                }
-                context.setTraceId(traceId);
+        String traceId = null;
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            traceId = attributes.getRequest().getHeader(TRACE_ID_HEADER);
+        }
+        return newContext(traceId);
+    }
+
+    /**
+     * 只接受长度受限的字母、数字、'-'和'_'，避免日志注入和超长写入
+     */
+    private static boolean isValidTraceId(String traceId) {
+        if (traceId == null || traceId.isEmpty() || traceId.length() > MAX_TRACE_ID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < traceId.length(); i++) {
+            char c = traceId.charAt(i);
+            if (!(c >= '0' && c <= '9' || c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c == '-' || c == '_')) {
+                return false;
             }
-        } catch (Exception e) {
-            // 生成新的追踪ID
-            context.setTraceId(UUID.randomUUID().toString().replace("-", ""));
         }
-        
-        return context;
+        return true;
     }
     
     /**
@@ -150,5 +204,17 @@ public class AuditContextHolder {
         public void setTraceId(String traceId) {
             this.traceId = traceId;
         }
+
+        /**
+         * 复制上下文，异步任务修改副本不影响调用方
+         */
+        public AuditContext copy() {
+            AuditContext copy = new AuditContext();
+            copy.userId = userId;
+            copy.username = username;
+            copy.userRealName = userRealName;
+            copy.traceId = traceId;
+            return copy;
+        }
     }
-}
\ No newline at end of file
+}
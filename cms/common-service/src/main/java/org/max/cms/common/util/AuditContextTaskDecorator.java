@@ -0,0 +1,21 @@
+package org.max.cms.common.util;
+
+import org.max.cms.common.util.AuditContextHolder.AuditContext;
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * 审计上下文任务装饰器
+ * 提交任务时复制调用方的链路追踪ID和用户身份，在执行线程中绑定，执行结束后恢复，
+ * 避免线程池线程残留上一个任务的上下文。
+ */
+public class AuditContextTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        AuditContext context = AuditContextHolder.capture();
+        if (context == null) {
+            return runnable;
+        }
+        return () -> AuditContextHolder.runWith(context, runnable);
+    }
+}
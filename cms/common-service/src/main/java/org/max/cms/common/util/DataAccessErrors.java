@@ -0,0 +1,33 @@
+package org.max.cms.common.util;
+
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.SQLException;
+
+/**
+ * 数据访问异常分类
+ * 区分由数据本身导致、重试也不会成功的错误（超长、类型不符、约束冲突）与连接等可恢复的错误
+ */
+public final class DataAccessErrors {
+
+    private DataAccessErrors() {
+    }
+
+    /**
+     * 是否为数据错误：SQLState 22（数据异常）或 23（完整性约束冲突）
+     */
+    public static boolean isDataError(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DataIntegrityViolationException) {
+                return true;
+            }
+            if (cause instanceof SQLException sqlException) {
+                String sqlState = sqlException.getSQLState();
+                if (sqlState != null && (sqlState.startsWith("22") || sqlState.startsWith("23"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,76 @@
+package org.max.cms.common.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 请求内的数据库耗时累加器
+ * 由RequestTimingFilter在请求开始时绑定、结束时清除，SqlTimingInterceptor在执行SQL后累加耗时，
+ * SqlStatementInnerInterceptor按映射语句计数，用于识别N+1查询
+ */
+public final class RequestTiming {
+
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+    private long databaseNanos;
+    private int statements;
+    private Map<String, Integer> statementCounts;
+
+    private RequestTiming() {
+    }
+
+    /**
+     * 为当前线程绑定新的累加器
+     */
+    public static RequestTiming begin() {
+        RequestTiming timing = new RequestTiming();
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    /**
+     * 解除当前线程的累加器
+     */
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * 累加一条SQL的执行耗时，当前线程不在请求中时忽略
+     */
+    public static void recordStatement(long nanos) {
+        RequestTiming timing = CURRENT.get();
+        if (timing != null) {
+            timing.databaseNanos += nanos;
+            timing.statements++;
+        }
+    }
+
+    /**
+     * 按映射语句ID计数，当前线程不在请求中时忽略
+     */
+    public static void countStatement(String statementId) {
+        RequestTiming timing = CURRENT.get();
+        if (timing != null) {
+            if (timing.statementCounts == null) {
+                timing.statementCounts = new HashMap<>();
+            }
+            timing.statementCounts.merge(statementId, 1, Integer::sum);
+        }
+    }
+
+    public long getDatabaseNanos() {
+        return databaseNanos;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    /**
+     * 各映射语句在本次请求中的执行次数
+     */
+    public Map<String, Integer> getStatementCounts() {
+        return statementCounts != null ? statementCounts : Map.of();
+    }
+}
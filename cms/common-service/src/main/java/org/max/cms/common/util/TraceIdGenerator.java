@@ -0,0 +1,35 @@
+package org.max.cms.common.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 链路追踪ID生成器
+ * 生成32位小写十六进制的128位随机ID（与W3C Trace Context格式兼容），
+ * 使用线程本地随机数，不经过UUID对象和字符串替换。
+ */
+public final class TraceIdGenerator {
+
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.ISO_8859_1);
+
+    private TraceIdGenerator() {
+    }
+
+    /**
+     * 生成新的链路追踪ID
+     */
+    public static String next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        byte[] chars = new byte[32];
+        writeHex(chars, 0, random.nextLong());
+        writeHex(chars, 16, random.nextLong());
+        return new String(chars, StandardCharsets.ISO_8859_1);
+    }
+
+    private static void writeHex(byte[] chars, int offset, long value) {
+        for (int i = offset + 15; i >= offset; i--) {
+            chars[i] = HEX_DIGITS[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+}
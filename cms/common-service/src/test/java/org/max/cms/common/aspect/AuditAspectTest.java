@@ -0,0 +1,99 @@
+package org.max.cms.common.aspect;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.max.cms.common.annotation.Auditable;
+import org.max.cms.common.entity.AuditLog;
+import org.max.cms.common.service.AuditLogService;
+import org.max.cms.common.util.AuditContextHolder;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 审计切面测试
+ * 单次调用开销的基准测试见benchmarks模块的AuditAspectBenchmark
+ */
+class AuditAspectTest {
+
+    private final AtomicReference<AuditLog> recorded = new AtomicReference<>();
+
+    private DocumentController target;
+    private DocumentController audited;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        AuditPlanRegistry auditPlanRegistry = new AuditPlanRegistry(mock(ApplicationContext.class), objectMapper);
+        ReflectionTestUtils.setField(auditPlanRegistry, "maxFieldLength", 8192);
+        AuditLogService auditLogService = (auditLog, async) -> recorded.set(auditLog);
+        AuditAspect auditAspect = new AuditAspect(auditLogService, auditPlanRegistry, new AuditChangeDiffer(objectMapper));
+
+        target = new DocumentController();
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(target);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(auditAspect);
+        audited = proxyFactory.getProxy();
+
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/documents");
+        request.addHeader("User-Agent", "JUnit");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, new MockHttpServletResponse()));
+        AuditContextHolder.setCurrentUser(1L, "admin", "管理员");
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        AuditContextHolder.clearContext();
+    }
+
+    @Test
+    void recordsMaskedBodyAndEvaluatedExpressions() {
+        audited.create(new DocumentRequest(7L, "contract.pdf", "s3cr3t"));
+
+        AuditLog auditLog = recorded.get();
+        assertThat(auditLog).isNotNull();
+        assertThat(auditLog.getOperationType()).isEqualTo("CREATE");
+        assertThat(auditLog.getTargetId()).isEqualTo("7");
+        assertThat(auditLog.getTargetName()).isEqualTo("contract.pdf");
+        assertThat(auditLog.getOperationDesc()).isEqualTo("创建文档 contract.pdf");
+        assertThat(auditLog.getRequestBody()).contains(AuditPlan.MASK).doesNotContain("s3cr3t");
+        assertThat(auditLog.getUsername()).isEqualTo("admin");
+        assertThat(auditLog.getStatus()).isEqualTo("SUCCESS");
+    }
+
+    static class DocumentController {
+
+        @Auditable(operationType = "CREATE", operationName = "创建文档", businessModule = "DOCUMENT",
+                targetType = "DOCUMENT", sensitiveFields = {"password"},
+                descExpression = "创建文档 #{#request.name}",
+                targetIdExpression = "#request.id", targetNameExpression = "#request.name")
+        public DocumentRequest create(@RequestBody DocumentRequest request) {
+            return request;
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class DocumentRequest {
+        private Long id;
+        private String name;
+        private String password;
+    }
+}
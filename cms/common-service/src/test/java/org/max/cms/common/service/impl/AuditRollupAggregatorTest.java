@@ -0,0 +1,127 @@
+package org.max.cms.common.service.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.max.cms.common.entity.AuditLog;
+import org.max.cms.common.entity.AuditLogRollup;
+import org.max.cms.common.repository.AuditLogRollupRepository;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 低风险审计事件汇总器测试
+ */
+class AuditRollupAggregatorTest {
+
+    private final AuditLogRollupRepository repository = mock(AuditLogRollupRepository.class);
+    private final List<AuditLogRollup> written = new ArrayList<>();
+
+    private AuditRollupAggregator aggregator;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        aggregator = new AuditRollupAggregator(repository, mock(ObjectProvider.class));
+        ReflectionTestUtils.setField(aggregator, "enabled", true);
+        ReflectionTestUtils.setField(aggregator, "operationTypes", Set.of("QUERY"));
+        ReflectionTestUtils.setField(aggregator, "modules", Set.of(""));
+        ReflectionTestUtils.setField(aggregator, "maxPending", 2);
+        aggregator.init();
+        when(repository.insertBatch(anyList())).thenAnswer(invocation -> {
+            List<AuditLogRollup> rollups = invocation.getArgument(0);
+            written.addAll(rollups);
+            return rollups.size();
+        });
+    }
+
+    @Test
+    void keepsEventsArrivingWhileBucketsAreFlushed() throws Exception {
+        LocalDateTime minute = LocalDateTime.of(2024, 1, 1, 10, 0);
+        int threads = 4;
+        int eventsPerThread = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> producers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            producers.add(executor.submit(() -> {
+                for (int j = 0; j < eventsPerThread; j++) {
+                    aggregator.absorb(event(minute, "列表"));
+                }
+            }));
+        }
+        while (producers.stream().anyMatch(producer -> !producer.isDone())) {
+            aggregator.shutdown();
+        }
+        for (Future<?> producer : producers) {
+            producer.get();
+        }
+        executor.shutdown();
+        aggregator.shutdown();
+
+        assertThat(written.stream().mapToLong(AuditLogRollup::getEventCount).sum())
+                .isEqualTo((long) threads * eventsPerThread);
+    }
+
+    @Test
+    void retriesFailedWritesOnNextFlush() {
+        LocalDateTime minute = LocalDateTime.of(2024, 1, 1, 10, 0);
+        when(repository.insertBatch(anyList()))
+                .thenThrow(new IllegalStateException("database unavailable"))
+                .thenAnswer(invocation -> {
+                    written.addAll(invocation.getArgument(0));
+                    return 1;
+                });
+        aggregator.absorb(event(minute, "列表"));
+        aggregator.absorb(event(minute, "列表"));
+
+        aggregator.shutdown();
+        assertThat(written).isEmpty();
+        aggregator.shutdown();
+
+        assertThat(written).singleElement().extracting(AuditLogRollup::getEventCount).isEqualTo(2L);
+    }
+
+    @Test
+    void dropsOldestRollupsBeyondPendingLimit() {
+        LocalDateTime minute = LocalDateTime.of(2024, 1, 1, 10, 0);
+        when(repository.insertBatch(anyList())).thenThrow(new IllegalStateException("database unavailable"));
+        aggregator.absorb(event(minute, "列表"));
+        aggregator.absorb(event(minute, "详情"));
+        aggregator.absorb(event(minute, "导出预览"));
+        aggregator.shutdown();
+
+        aggregator.shutdown();
+
+        ArgumentCaptor<List<AuditLogRollup>> batches = ArgumentCaptor.captor();
+        verify(repository, times(2)).insertBatch(batches.capture());
+        assertThat(batches.getAllValues().get(1)).hasSize(2);
+    }
+
+    private static AuditLog event(LocalDateTime startTime, String operationName) {
+        AuditLog auditLog = new AuditLog();
+        auditLog.setStartTime(startTime);
+        auditLog.setOperationType("QUERY");
+        auditLog.setBusinessModule("DOCUMENT");
+        auditLog.setOperationName(operationName);
+        auditLog.setStatus("SUCCESS");
+        auditLog.setResponseTime(12L);
+        auditLog.setUserId(1L);
+        return auditLog;
+    }
+}
@@ -0,0 +1,117 @@
+-- 将审计日志表改为按operation_date的月度范围分区表
+-- 插入只维护当前分区的少量索引，过期数据按分区整体卸载或删除，不再产生DELETE膨胀
+-- 后续分区由应用内的分区管理任务提前创建
+
+-- 保留原表数据，释放表名、主键名和序列
+ALTER TABLE audit_logs RENAME TO audit_logs_legacy;
+ALTER TABLE audit_logs_legacy RENAME CONSTRAINT audit_logs_pkey TO audit_logs_legacy_pkey;
+ALTER SEQUENCE audit_logs_id_seq OWNED BY NONE;
+
+CREATE TABLE audit_logs (
+    id BIGINT NOT NULL DEFAULT nextval('audit_logs_id_seq'),
+
+    -- 操作基本信息
+    operation_type VARCHAR(50) NOT NULL,
+    operation_name VARCHAR(100) NOT NULL,
+    operation_desc TEXT,
+
+    -- 请求信息
+    request_method VARCHAR(10),
+    request_url VARCHAR(500),
+    request_params TEXT,
+    request_body TEXT,
+    request_headers TEXT,
+
+    -- 响应信息
+    response_status INTEGER,
+    response_body TEXT,
+    response_time BIGINT,
+
+    -- 业务信息
+    business_module VARCHAR(50),
+    target_type VARCHAR(50),
+    target_id VARCHAR(100),
+    target_name VARCHAR(200),
+
+    -- 变更信息(用于UPDATE操作)
+    old_values TEXT,
+    new_values TEXT,
+    changed_fields TEXT,
+
+    -- 用户和环境信息
+    user_id BIGINT,
+    username VARCHAR(100),
+    user_real_name VARCHAR(100),
+    ip_address VARCHAR(45),
+    user_agent TEXT,
+    session_id VARCHAR(100),
+
+    -- 系统信息
+    server_name VARCHAR(100),
+    thread_id VARCHAR(50),
+    trace_id VARCHAR(100),
+
+    -- 状态和结果
+    status VARCHAR(20) DEFAULT 'SUCCESS',
+    error_message TEXT,
+    risk_level VARCHAR(20) DEFAULT 'LOW',
+
+    -- 时间信息
+    start_time TIMESTAMP NOT NULL,
+    end_time TIMESTAMP,
+    operation_date DATE NOT NULL,              -- 分区键
+
+    -- 审计元数据
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    created_by VARCHAR(255) DEFAULT 'system',
+    deleted BOOLEAN DEFAULT FALSE,
+
+    -- 分区表的主键必须包含分区键
+    CONSTRAINT audit_logs_pkey PRIMARY KEY (id, operation_date)
+) PARTITION BY RANGE (operation_date);
+
+ALTER SEQUENCE audit_logs_id_seq OWNED BY audit_logs.id;
+
+-- 兜底分区，接收尚未创建月度分区的数据
+CREATE TABLE audit_logs_default PARTITION OF audit_logs DEFAULT;
+
+-- 为已有数据所在月份至未来3个月创建月度分区
+DO $$
+DECLARE
+    month_start DATE;
+    last_month DATE := date_trunc('month', CURRENT_DATE + INTERVAL '3 months')::DATE;
+BEGIN
+    SELECT date_trunc('month', COALESCE(MIN(operation_date), CURRENT_DATE))::DATE
+      INTO month_start
+      FROM audit_logs_legacy;
+
+    WHILE month_start <= last_month LOOP
+        EXECUTE format(
+            'CREATE TABLE IF NOT EXISTS %I PARTITION OF audit_logs FOR VALUES FROM (%L) TO (%L)',
+            'audit_logs_p' || to_char(month_start, 'YYYYMM'),
+            month_start,
+            (month_start + INTERVAL '1 month')::DATE
+        );
+        month_start := (month_start + INTERVAL '1 month')::DATE;
+    END LOOP;
+END $$;
+
+-- 迁移已有数据
+INSERT INTO audit_logs SELECT * FROM audit_logs_legacy;
+
+DROP TABLE audit_logs_legacy;
+
+-- 只保留常用查询所需的索引；按时间的查询通过分区裁剪定位，不再需要单独的日期索引
+CREATE INDEX idx_audit_logs_user_time ON audit_logs(user_id, operation_date DESC);
+CREATE INDEX idx_audit_logs_module_time ON audit_logs(business_module, operation_date DESC);
+CREATE INDEX idx_audit_logs_type_time ON audit_logs(operation_type, operation_date DESC);
+CREATE INDEX idx_audit_logs_target ON audit_logs(target_type, target_id);
+CREATE INDEX idx_audit_logs_trace_id ON audit_logs(trace_id);
+
+-- 添加表注释
+COMMENT ON TABLE audit_logs IS '系统审计日志表（按operation_date月度分区），记录所有用户操作和系统行为';
+COMMENT ON COLUMN audit_logs.operation_type IS '操作类型：CREATE,UPDATE,DELETE,LOGIN,LOGOUT,QUERY等';
+COMMENT ON COLUMN audit_logs.business_module IS '业务模块：USER,ASSET,AUTH,SYSTEM等';
+COMMENT ON COLUMN audit_logs.risk_level IS '风险级别：LOW,MEDIUM,HIGH,CRITICAL';
+COMMENT ON COLUMN audit_logs.status IS '操作状态：SUCCESS,FAILED,PARTIAL';
+COMMENT ON COLUMN audit_logs.operation_date IS '操作日期，分区键，查询时应带上该条件以裁剪分区';
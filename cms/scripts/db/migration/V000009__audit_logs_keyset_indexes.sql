@@ -0,0 +1,22 @@
+-- 审计日志查询按(start_time, id)倒序键集分页，调整索引使过滤条件后直接按该顺序读取，无需排序
+-- 时间窗口通过operation_date裁剪分区，索引只需覆盖分区内的过滤和排序
+
+DROP INDEX IF EXISTS idx_audit_logs_user_time;
+DROP INDEX IF EXISTS idx_audit_logs_module_time;
+DROP INDEX IF EXISTS idx_audit_logs_type_time;
+DROP INDEX IF EXISTS idx_audit_logs_target;
+
+-- 无过滤条件的时间窗口查询和导出
+CREATE INDEX idx_audit_logs_time ON audit_logs(start_time DESC, id DESC);
+
+-- 按用户、模块、操作类型、目标对象查询
+CREATE INDEX idx_audit_logs_user_time ON audit_logs(user_id, start_time DESC, id DESC);
+CREATE INDEX idx_audit_logs_module_time ON audit_logs(business_module, start_time DESC, id DESC);
+CREATE INDEX idx_audit_logs_type_time ON audit_logs(operation_type, start_time DESC, id DESC);
+CREATE INDEX idx_audit_logs_target_time ON audit_logs(target_type, target_id, start_time DESC, id DESC);
+
+-- 合规审查主要关注高风险操作，部分索引只包含HIGH和CRITICAL记录
+CREATE INDEX idx_audit_logs_high_risk_time ON audit_logs(start_time DESC, id DESC)
+    WHERE risk_level IN ('HIGH', 'CRITICAL');
+
+-- idx_audit_logs_trace_id 保持不变，链路查询结果集很小
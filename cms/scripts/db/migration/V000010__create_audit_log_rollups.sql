@@ -0,0 +1,31 @@
+-- 低风险审计事件的每分钟汇总表
+-- 命中汇总规则的LOW级别成功事件不再逐条写入audit_logs，而是在内存中按分钟汇总后批量写入
+-- 同一分钟的迟到事件可能产生多行，统计时按bucket_start分组求和
+
+CREATE TABLE audit_log_rollups (
+    id BIGSERIAL PRIMARY KEY,
+
+    -- 汇总维度
+    bucket_start TIMESTAMP NOT NULL,           -- 所属分钟
+    operation_type VARCHAR(50) NOT NULL,
+    business_module VARCHAR(50),
+    operation_name VARCHAR(100) NOT NULL,
+
+    -- 汇总指标
+    event_count BIGINT NOT NULL,
+    sampled_count BIGINT NOT NULL DEFAULT 0,   -- 其中按抽样率逐条写入audit_logs的条数
+    distinct_users INTEGER NOT NULL DEFAULT 0,
+    response_time_p50 BIGINT,
+    response_time_p99 BIGINT,
+    response_time_max BIGINT,
+
+    created_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX idx_audit_log_rollups_bucket ON audit_log_rollups(bucket_start DESC);
+CREATE INDEX idx_audit_log_rollups_module_bucket ON audit_log_rollups(business_module, bucket_start DESC);
+
+COMMENT ON TABLE audit_log_rollups IS '低风险审计事件每分钟汇总表';
+COMMENT ON COLUMN audit_log_rollups.distinct_users IS '去重用户数，单分钟超过上限时为下限值';
+COMMENT ON COLUMN audit_log_rollups.response_time_p50 IS '响应时间中位数（毫秒，相对误差约6%）';
+COMMENT ON COLUMN audit_log_rollups.response_time_p99 IS '响应时间P99（毫秒，相对误差约6%）';
@@ -0,0 +1,24 @@
+-- 文档内容寻址存储
+-- 文件按内容的SHA-256存放在分片目录下，相同内容只保存一份，引用计数记录在document_blobs中
+-- 引用计数归零的内容由后台任务在宽限期后回收
+
+CREATE TABLE document_blobs (
+    content_hash VARCHAR(64) PRIMARY KEY,      -- SHA-256十六进制
+    file_size BIGINT NOT NULL,
+    storage_path VARCHAR(500) NOT NULL,
+    ref_count INTEGER NOT NULL DEFAULT 0 CHECK (ref_count >= 0),
+    orphaned_at TIMESTAMP,                     -- 引用计数归零的时间
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    updated_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+-- 只索引待回收的内容
+CREATE INDEX idx_document_blobs_orphaned ON document_blobs(orphaned_at) WHERE ref_count = 0;
+
+-- 文档引用的内容，历史文档为空并继续使用原文件路径
+ALTER TABLE documents ADD COLUMN content_hash VARCHAR(64);
+CREATE INDEX idx_documents_content_hash ON documents(content_hash);
+
+COMMENT ON TABLE document_blobs IS '文档内容表（内容寻址，按引用计数回收）';
+COMMENT ON COLUMN document_blobs.ref_count IS '引用该内容的文档数';
+COMMENT ON COLUMN documents.content_hash IS '文档内容的SHA-256，为空表示去重前上传的历史文档';
@@ -0,0 +1,34 @@
+-- 分片断点续传上传
+-- 客户端创建上传会话后按序号并行上传分片，分片直接写入预分配文件的对应偏移，全部到齐后合并为文档
+-- 过期未完成的会话由后台任务清理
+
+CREATE TABLE document_upload_sessions (
+    id VARCHAR(32) PRIMARY KEY,               -- 随机上传ID
+    folder_id BIGINT REFERENCES folders(id),
+    original_name VARCHAR(255) NOT NULL,
+    mime_type VARCHAR(100),
+    description TEXT,
+    file_size BIGINT NOT NULL,
+    chunk_size INTEGER NOT NULL,
+    total_chunks INTEGER NOT NULL,
+    content_hash VARCHAR(64),                 -- 客户端声明的整体SHA-256，可为空
+    status VARCHAR(20) NOT NULL DEFAULT 'ACTIVE',
+    expires_at TIMESTAMP NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    created_by VARCHAR(255) DEFAULT 'system'
+);
+
+CREATE INDEX idx_document_upload_sessions_expires ON document_upload_sessions(expires_at) WHERE status = 'ACTIVE';
+
+-- 已接收的分片，每个分片一行，避免并行上传时争用会话行
+CREATE TABLE document_upload_chunks (
+    session_id VARCHAR(32) NOT NULL REFERENCES document_upload_sessions(id) ON DELETE CASCADE,
+    chunk_index INTEGER NOT NULL,
+    checksum VARCHAR(64) NOT NULL,            -- 分片SHA-256
+    received_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (session_id, chunk_index)
+);
+
+COMMENT ON TABLE document_upload_sessions IS '文档分片上传会话';
+COMMENT ON COLUMN document_upload_sessions.status IS '会话状态：ACTIVE,COMPLETED';
+COMMENT ON TABLE document_upload_chunks IS '已接收的上传分片';
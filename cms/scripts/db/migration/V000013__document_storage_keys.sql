@@ -0,0 +1,14 @@
+-- 文档存储后端抽象
+-- document_blobs.storage_path和documents.file_path改为存放存储键（blobs/前两位/三四位/哈希），
+-- 由配置的存储后端（本地磁盘、S3兼容对象存储或分层存储）解析，不再保存本地绝对路径
+-- 历史文档（content_hash为空）仍保存本地路径，可通过document.storage.migrate迁移到内容寻址存储
+
+UPDATE document_blobs
+SET storage_path = 'blobs/' || substr(content_hash, 1, 2) || '/' || substr(content_hash, 3, 2) || '/' || content_hash;
+
+UPDATE documents
+SET file_path = 'blobs/' || substr(content_hash, 1, 2) || '/' || substr(content_hash, 3, 2) || '/' || content_hash
+WHERE content_hash IS NOT NULL;
+
+COMMENT ON COLUMN document_blobs.storage_path IS '存储键，相对于存储后端根位置';
+COMMENT ON COLUMN documents.file_path IS '存储键；content_hash为空的历史文档为本地文件路径';
@@ -0,0 +1,6 @@
+-- 过期上传会话清理
+-- 合并中途异常退出的会话停留在COMPLETED状态，也需要按过期时间清理，过期索引不再限定ACTIVE状态
+
+DROP INDEX IF EXISTS idx_document_upload_sessions_expires;
+
+CREATE INDEX idx_document_upload_sessions_expires ON document_upload_sessions(expires_at);